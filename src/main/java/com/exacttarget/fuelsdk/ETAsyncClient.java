@@ -0,0 +1,327 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * An <code>ETAsyncClient</code> runs <code>ETClient</code> calls
+ * asynchronously, returning <code>CompletableFuture</code>s. Use
+ * <code>ETClient.async()</code> to obtain one.
+ * <p>
+ * Cancelling a returned future (or its timing out) is propagated
+ * to the call: REST requests in flight are aborted, SOAP calls
+ * get the remaining time as their CXF receive timeout, and the
+ * thread executing the call is interrupted. (Futures derived from
+ * the returned ones, e.g., with <code>thenApply</code>, don't
+ * propagate cancellation, as is usual for
+ * <code>CompletableFuture</code>s.)
+ */
+
+public class ETAsyncClient {
+    private static ScheduledExecutorService timer = null;
+
+    private final ETClient client;
+    private final Executor executor;
+    private final long timeout;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param client    The ETClient object
+     * @param executor  The Executor the calls are run on
+     * @param timeout   The timeout in milliseconds (0 for none)
+    */
+    ETAsyncClient(ETClient client, Executor executor, long timeout) {
+        this.client = client;
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return  The ETClient object
+     */
+    public ETClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return  The Executor the calls are run on
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param timeout   The timeout
+     * @param unit      The unit of the timeout
+     * @return          An ETAsyncClient whose calls time out after
+     *                  the specified time (the returned futures
+     *                  complete with a TimeoutException)
+     */
+    public ETAsyncClient withTimeout(long timeout, TimeUnit unit) {
+        return new ETAsyncClient(client, executor, unit.toMillis(timeout));
+    }
+
+    /**
+     * @param executor  The Executor to run the calls on
+     * @return          An ETAsyncClient whose calls run on the executor
+     */
+    public ETAsyncClient withExecutor(Executor executor) {
+        return new ETAsyncClient(client, executor, timeout);
+    }
+
+    /**
+     * Runs a call asynchronously.
+     * @param <R>       The result type
+     * @param call      The Call to run
+     * @return          The CompletableFuture of the result
+     */
+    public <R> CompletableFuture<R> submit(final Call<R> call) {
+        final ETCallContext context = new ETCallContext(timeout);
+        final CallFuture<R> future = new CallFuture<R>(context);
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!context.attach()) {
+                        return; // cancelled before it started
+                    }
+                    try {
+                        future.complete(call.call(client));
+                    } catch (Throwable ex) {
+                        future.completeExceptionally(ex);
+                    } finally {
+                        context.detach();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+            return future;
+        }
+
+        if (timeout > 0) {
+            final ScheduledFuture<?> timeoutTask = getTimer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    future.completeExceptionally(new TimeoutException("call timed out after "
+                            + timeout + " ms"));
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+            future.whenComplete(new BiConsumer<R, Throwable>() {
+                @Override
+                public void accept(R result, Throwable ex) {
+                    timeoutTask.cancel(false);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> retrieve(Class<T> type,
+                                                                             ETFilter filter)
+    {
+        return retrieve(type, null, null, filter);
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param filter        The filter to be used to retrieve as variable arguments of String
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> retrieve(final Class<T> type,
+                                                                             final String... filter)
+    {
+        return submit(new Call<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call(ETClient client)
+                throws ETSdkException
+            {
+                return client.retrieve(type, filter);
+            }
+        });
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param page          The page number
+     * @param pageSize      The page size
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> retrieve(final Class<T> type,
+                                                                             final Integer page,
+                                                                             final Integer pageSize,
+                                                                             final ETFilter filter)
+    {
+        return submit(new Call<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call(ETClient client)
+                throws ETSdkException
+            {
+                return client.retrieve(type, page, pageSize, filter);
+            }
+        });
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param objects       The List of objects to create
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> create(final List<T> objects) {
+        return submit(new Call<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call(ETClient client)
+                throws ETSdkException
+            {
+                return client.create(objects);
+            }
+        });
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param objects       The List of objects to update
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> update(final List<T> objects) {
+        return submit(new Call<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call(ETClient client)
+                throws ETSdkException
+            {
+                return client.update(objects);
+            }
+        });
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param objects       The List of objects to delete
+     * @return              The CompletableFuture of the ETResponse of type T
+     */
+    public <T extends ETApiObject> CompletableFuture<ETResponse<T>> delete(final List<T> objects) {
+        return submit(new Call<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call(ETClient client)
+                throws ETSdkException
+            {
+                return client.delete(objects);
+            }
+        });
+    }
+
+    private static synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fuelsdk-async-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // don't hold on to the timeouts of completed calls
+            executor.setRemoveOnCancelPolicy(true);
+            timer = executor;
+        }
+        return timer;
+    }
+
+    /**
+     * A <code>Call</code> is a unit of work run asynchronously
+     * by <code>submit</code>.
+     */
+    public interface Call<R> {
+        /**
+         * @param client    The ETClient object
+         * @return          The result
+         * @throws ETSdkException
+         */
+        public R call(ETClient client)
+            throws ETSdkException;
+    }
+
+    /**
+     * Cancels the call when the future completes before the call
+     * does (i.e., when it's cancelled or times out).
+     */
+    private static class CallFuture<R> extends CompletableFuture<R> {
+        private final ETCallContext context;
+
+        private CallFuture(ETCallContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                context.cancel();
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            if (completed && ex instanceof TimeoutException) {
+                context.cancel();
+            }
+            return completed;
+        }
+    }
+}
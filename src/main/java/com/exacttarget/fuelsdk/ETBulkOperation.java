@@ -0,0 +1,324 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETBulkOperation</code> splits a (possibly unbounded)
+ * sequence of objects into batches limited both by object count
+ * and by estimated payload size, and sends the batches
+ * concurrently, with at most <code>concurrency</code> batches
+ * in flight. Objects are read from the iterator only as batches
+ * are sent, so they needn't all be held in memory.
+ */
+
+class ETBulkOperation<T extends ETApiObject> {
+    private static final Logger logger = LoggerFactory.getLogger(ETBulkOperation.class);
+
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int batchBytes;
+    private final int concurrency;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param executor      The ExecutorService the batches are sent on
+     * @param batchSize     The maximum number of objects per batch
+     * @param batchBytes    The maximum estimated payload size per batch
+     * @param concurrency   The maximum number of batches in flight
+    */
+    ETBulkOperation(ExecutorService executor,
+                    int batchSize,
+                    int batchBytes,
+                    int concurrency)
+    {
+        this.executor = executor;
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchBytes = Math.max(batchBytes, 1);
+        this.concurrency = Math.max(concurrency, 1);
+    }
+
+    /**
+     * Sends all objects. A batch that fails as a whole (e.g., the
+     * call throws) doesn't stop the operation: all of its objects
+     * are reported as failed. Each batch is released as soon as
+     * it completes; only the failed objects and their results are
+     * kept in the aggregated response.
+     * @param objects   The objects to send
+     * @param batch     The Batch that sends one batch of objects
+     * @return          The aggregated ETBulkResponse
+     * @throws ETSdkException
+     */
+    ETBulkResponse<T> execute(Iterator<? extends T> objects, final Batch<T> batch)
+        throws ETSdkException
+    {
+        long start = System.currentTimeMillis();
+
+        CompletionService<ETResponse<T>> completionService =
+                new ExecutorCompletionService<ETResponse<T>>(executor);
+        Map<Future<ETResponse<T>>, Integer> outstanding =
+                new HashMap<Future<ETResponse<T>>, Integer>();
+        Map<Integer, List<T>> batches = new HashMap<Integer, List<T>>();
+        TreeMap<Integer, List<T>> failedObjects = new TreeMap<Integer, List<T>>();
+        TreeMap<Integer, List<ETResult<T>>> failedResults =
+                new TreeMap<Integer, List<ETResult<T>>>();
+        String requestId = null;
+        int batchCount = 0;
+        int objectCount = 0;
+
+        try {
+            Batches batchIterator = new Batches(objects, batch);
+            List<T> next = null;
+            while (true) {
+                if (next == null && batchIterator.hasNext()) {
+                    next = batchIterator.next();
+                }
+                if (next != null && outstanding.size() < concurrency) {
+                    submit(completionService, outstanding, batchCount, next, batch);
+                    batches.put(batchCount++, next);
+                    objectCount += next.size();
+                    next = null;
+                    continue;
+                }
+                if (outstanding.isEmpty()) {
+                    break;
+                }
+
+                //
+                // Wait for a batch to complete:
+                //
+
+                Future<ETResponse<T>> future = completionService.take();
+                int index = outstanding.remove(future);
+                List<T> batchObjects = batches.remove(index);
+                ETResponse<T> batchResponse = getResponse(future, batchObjects);
+                if (requestId == null) {
+                    requestId = batchResponse.getRequestId();
+                }
+
+                //
+                // Fold the batch into the aggregate right away, keeping
+                // only what failed, so that memory use is bounded by
+                // the batches in flight rather than the whole load:
+                //
+
+                List<ETResult<T>> results = batchResponse.getResults();
+                List<T> failed = new ArrayList<T>();
+                List<ETResult<T>> failedBatchResults = new ArrayList<ETResult<T>>();
+                for (int i = 0; i < batchObjects.size(); i++) {
+                    ETResult<T> result = i < results.size() ? results.get(i) : null;
+                    if (result == null || result.getStatus() != ETResult.Status.OK) {
+                        failed.add(batchObjects.get(i));
+                        if (result != null) {
+                            failedBatchResults.add(result);
+                        }
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    failedObjects.put(index, failed);
+                    failedResults.put(index, failedBatchResults);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ETSdkException("interrupted sending batches", ex);
+        } finally {
+            for (Future<ETResponse<T>> future : outstanding.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        //
+        // Collect the failures in batch order:
+        //
+
+        ETBulkResponse<T> response = new ETBulkResponse<T>();
+        response.setRequestId(requestId);
+        for (List<T> failed : failedObjects.values()) {
+            for (T object : failed) {
+                response.addFailedObject(object);
+            }
+        }
+        for (List<ETResult<T>> results : failedResults.values()) {
+            response.addResults(results);
+        }
+        response.setObjectCount(objectCount);
+        response.setBatchCount(batchCount);
+        response.setElapsedTime(System.currentTimeMillis() - start);
+        if (response.getFailedObjects().isEmpty()) {
+            response.setStatus(ETResult.Status.OK);
+            response.setResponseCode("OK");
+            response.setResponseMessage("OK");
+        } else {
+            response.setStatus(ETResult.Status.ERROR);
+            response.setResponseCode("Error");
+            response.setResponseMessage(response.getFailedObjects().size()
+                    + " of " + objectCount + " objects failed");
+        }
+
+        logger.debug("sent " + objectCount + " objects in " + batchCount
+                + " batches in " + response.getElapsedTime() + " ms ("
+                + response.getThroughput() + " objects/s, "
+                + response.getFailedObjects().size() + " failed)");
+
+        return response;
+    }
+
+    private void submit(CompletionService<ETResponse<T>> completionService,
+                        Map<Future<ETResponse<T>>, Integer> outstanding,
+                        int index,
+                        final List<T> objects,
+                        final Batch<T> batch)
+    {
+        outstanding.put(completionService.submit(new Callable<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> call()
+                throws ETSdkException
+            {
+                return batch.send(objects);
+            }
+        }), index);
+    }
+
+    private ETResponse<T> getResponse(Future<ETResponse<T>> future, List<T> objects)
+        throws InterruptedException
+    {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            logger.warn("batch of " + objects.size() + " objects failed", ex.getCause());
+
+            //
+            // Report each object of the batch as failed:
+            //
+
+            ETResponse<T> response = new ETResponse<T>();
+            response.setStatus(ETResult.Status.ERROR);
+            for (int i = 0; i < objects.size(); i++) {
+                ETResult<T> result = new ETResult<T>();
+                result.setStatus(ETResult.Status.ERROR);
+                result.setResponseCode("Error");
+                result.setResponseMessage(ex.getCause().getMessage());
+                result.setErrorMessage(ex.getCause().getMessage());
+                response.addResult(result);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Groups objects into batches of at most batchSize objects
+     * and (unless it holds a single object) batchBytes bytes.
+     */
+    private class Batches implements Iterator<List<T>> {
+        private final Iterator<? extends T> objects;
+        private final Batch<T> batch;
+        private T carry = null;
+        private int carryBytes = 0;
+
+        private Batches(Iterator<? extends T> objects, Batch<T> batch) {
+            this.objects = objects;
+            this.batch = batch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return carry != null || objects.hasNext();
+        }
+
+        @Override
+        public List<T> next() {
+            List<T> next = new ArrayList<T>();
+            int bytes = 0;
+            if (carry != null) {
+                next.add(carry);
+                bytes = carryBytes;
+                carry = null;
+            }
+            while (next.size() < batchSize && objects.hasNext()) {
+                T object = objects.next();
+                int size = batch.estimateSize(object);
+                if (!next.isEmpty() && bytes + size > batchBytes) {
+                    // this one starts the next batch
+                    carry = object;
+                    carryBytes = size;
+                    break;
+                }
+                next.add(object);
+                bytes += size;
+            }
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A <code>Batch</code> sends one batch of objects.
+     */
+    interface Batch<T extends ETApiObject> {
+        /**
+         * @param object    The object
+         * @return          The estimated size of the object in the payload
+         */
+        int estimateSize(T object);
+
+        /**
+         * @param objects   The objects of the batch
+         * @return          The ETResponse with one result per object, in order
+         * @throws ETSdkException
+         */
+        ETResponse<T> send(List<T> objects)
+            throws ETSdkException;
+    }
+}
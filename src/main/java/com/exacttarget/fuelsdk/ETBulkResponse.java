@@ -0,0 +1,116 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An <code>ETBulkResponse</code> object represents the aggregated
+ * response of a bulk operation that was sent as several batches.
+ * So that large loads needn't be held in memory, it holds only
+ * the results of the objects that failed, along with the failed
+ * objects themselves (so they can be retried), the counts and
+ * the throughput.
+ */
+public class ETBulkResponse<T extends ETApiObject> extends ETResponse<T> {
+    private List<T> failedObjects = new ArrayList<T>();
+    private int objectCount = 0;
+    private int batchCount = 0;
+    private long elapsedTime = 0;
+
+    /**
+    * @return The objects that failed (in their original order).
+    */
+    public List<T> getFailedObjects() {
+        return failedObjects;
+    }
+
+    /**
+    * @param object     An object that failed
+    */
+    public void addFailedObject(T object) {
+        failedObjects.add(object);
+    }
+
+    /**
+    * @return The number of objects that were sent.
+    */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+    * @param objectCount    The number of objects that were sent.
+    */
+    public void setObjectCount(int objectCount) {
+        this.objectCount = objectCount;
+    }
+
+    /**
+    * @return The number of batches the objects were sent in.
+    */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+    * @param batchCount     The number of batches the objects were sent in.
+    */
+    public void setBatchCount(int batchCount) {
+        this.batchCount = batchCount;
+    }
+
+    /**
+    * @return The time in milliseconds the operation took.
+    */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+    * @param elapsedTime    The time in milliseconds the operation took.
+    */
+    public void setElapsedTime(long elapsedTime) {
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+    * @return The throughput in objects per second.
+    */
+    public double getThroughput() {
+        return elapsedTime == 0 ? 0.0 : objectCount * 1000.0 / elapsedTime;
+    }
+}
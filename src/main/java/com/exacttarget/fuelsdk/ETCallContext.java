@@ -0,0 +1,178 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An <code>ETCallContext</code> carries the deadline and the
+ * cancellation state of an asynchronous call (see
+ * <code>ETAsyncClient</code>) down to the transports on the
+ * thread executing it. Transports use the remaining time as
+ * their timeouts and register a callback that aborts the request
+ * in flight if the call is cancelled.
+ */
+
+class ETCallContext {
+    private static final ThreadLocal<ETCallContext> current = new ThreadLocal<ETCallContext>();
+
+    private final long deadline; // System.nanoTime(), or 0 if none
+    private final List<Runnable> cancelCallbacks = new ArrayList<Runnable>();
+    private Thread thread = null;
+    private boolean cancelled = false;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param timeout   The timeout in milliseconds (0 for none)
+    */
+    ETCallContext(long timeout) {
+        this.deadline = timeout > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)
+                : 0;
+    }
+
+    /**
+     * @return  The context of the call executing on this thread
+     *          (null if the call isn't asynchronous)
+     */
+    static ETCallContext current() {
+        return current.get();
+    }
+
+    /**
+     * Makes this the context of the calling thread.
+     * @return  false if the call was cancelled already
+     */
+    synchronized boolean attach() {
+        if (cancelled) {
+            return false;
+        }
+        thread = Thread.currentThread();
+        current.set(this);
+        return true;
+    }
+
+    /**
+     * Removes this context from the calling thread.
+     */
+    synchronized void detach() {
+        current.remove();
+        thread = null;
+        // don't leave an interrupt meant for this call behind
+        if (cancelled) {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * @return  The time left until the deadline in milliseconds,
+     *          or null if there is no deadline
+     * @throws ETSdkException if the call was cancelled or timed out
+     */
+    Integer getRemainingTime()
+        throws ETSdkException
+    {
+        if (isCancelled()) {
+            throw new ETSdkException("call cancelled");
+        }
+        if (deadline == 0) {
+            return null;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new ETSdkException("call timed out");
+        }
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return  true if the call has passed its deadline, false otherwise
+     */
+    boolean isExpired() {
+        return deadline != 0 && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @param callback  The callback to run if the call is cancelled
+     *                  (e.g., to abort a request in flight)
+     * @return          false if the call was cancelled already
+     */
+    synchronized boolean addCancelCallback(Runnable callback) {
+        if (cancelled) {
+            return false;
+        }
+        cancelCallbacks.add(callback);
+        return true;
+    }
+
+    /**
+     * @param callback  The callback to remove (once the request
+     *                  it aborts has completed)
+     */
+    synchronized void removeCancelCallback(Runnable callback) {
+        cancelCallbacks.remove(callback);
+    }
+
+    /**
+     * @return  true if the call was cancelled, false otherwise
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the call: runs the cancel callbacks and interrupts
+     * the thread executing the call.
+     */
+    void cancel() {
+        List<Runnable> callbacks = null;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            callbacks = new ArrayList<Runnable>(cancelCallbacks);
+            cancelCallbacks.clear();
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+}
@@ -44,20 +44,37 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <code>ETClient</code> is the central object in the Java
- * client library.
+ * client library. Clients hold resources (a background token
+ * refresh, worker threads, pooled connections) and should be
+ * closed once they are no longer needed.
  */
 
-public class ETClient {
+public class ETClient implements Closeable {
     public static final int HTTP_OK = 200;
     private static final Logger logger = LoggerFactory.getLogger(ETClient.class);
 
@@ -90,16 +107,34 @@ public class ETClient {
 
     private Gson gson = null;
 
+    private ETRestTransport restTransport = null;
+
     private ETRestConnection authConnection = null;
     private ETRestConnection restConnection = null;
     private ETSoapConnection soapConnection = null;
 
-    private String accessToken = null;
+    private static final long DEFAULT_TOKEN_REFRESH_SKEW = 60000;
+    private static final long TOKEN_REFRESH_RETRY_DELAY = 10000;
+    private static final int DEFAULT_MAX_BUFFERED_PAGES = 2;
+
+    private static ScheduledExecutorService tokenRefresher = null;
+
+    private final Object tokenLock = new Object();
+
+    private volatile String accessToken = null;
     private int expiresIn = 0;
     private String legacyToken = null;
     private String refreshToken = null;
 
-    private long tokenExpirationTime = 0;
+    private volatile long tokenExpirationTime = 0;
+    private long tokenRefreshSkew = DEFAULT_TOKEN_REFRESH_SKEW;
+    private ScheduledFuture<?> scheduledTokenRefresh = null;
+    private boolean closed = false;
+
+    private ExecutorService executor = null;
+    private ETDataExtensionSchemaCache dataExtensionSchemaCache = null;
+    private ETAsyncClient asyncClient = null;
+    private ETSingleFlight retrieveSingleFlight = null;
 
     /**
     * Class constructor, Initializes a new instance of the class.
@@ -147,15 +182,23 @@ public class ETClient {
         }
         soapEndpoint = configuration.get("soapEndpoint");
 
-        GsonBuilder gsonBuilder = new GsonBuilder()
-            .excludeFieldsWithoutExposeAnnotation()
-            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-        if (logger.isDebugEnabled()) {
-            gson = gsonBuilder.setPrettyPrinting().create();
-        } else {
-            gson = gsonBuilder.create();
+        Integer skew = configuration.getInteger("tokenRefreshSkew", null);
+        if (skew != null) {
+            tokenRefreshSkew = skew;
         }
 
+        //
+        // The Gson used to serialize requests doesn't depend on the
+        // log level (bodies are logged as sent by ETWireLogger):
+        //
+
+        gson = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
+            .create();
+
+        restTransport = createRestTransport(configuration);
+
         if (clientId != null && clientSecret != null) {
             authConnection = new ETRestConnection(this, authEndpoint, true);
             requestToken();
@@ -194,6 +237,10 @@ public class ETClient {
             autoHydrateObjects = false;
         }
 
+        if (configuration.isTrue("coalesceRetrieves")) {
+            retrieveSingleFlight = new ETSingleFlight();
+        }
+
         if (logger.isTraceEnabled()) {
             logger.trace("ETClient initialized:");
             logger.trace("  clientId = " + clientId);
@@ -247,6 +294,16 @@ public class ETClient {
         return configuration;
     }
 
+    /**
+     * @return      The cache of data extension columns
+     */
+    public synchronized ETDataExtensionSchemaCache getDataExtensionSchemaCache() {
+        if (dataExtensionSchemaCache == null) {
+            dataExtensionSchemaCache = new ETDataExtensionSchemaCache(configuration);
+        }
+        return dataExtensionSchemaCache;
+    }
+
     /**
      *
      * @return      The Gson
@@ -255,6 +312,14 @@ public class ETClient {
         return gson;
     }
 
+    /**
+     *
+     * @return      The ETRestTransport shared by all REST connections
+     */
+    public ETRestTransport getRestTransport() {
+        return restTransport;
+    }
+
     /**
      *
      * @return      The ETRestConnection
@@ -292,20 +357,59 @@ public class ETClient {
     }
 
     /**
+     * Returns the current access token, requesting one first if
+     * there is none yet or it has expired. Tokens are refreshed
+     * in the background before they expire, so callers only
+     * block here at cold start (or if a background refresh has
+     * failed).
      * @return                      The request token
      */
-    public synchronized String requestToken()
+    public String requestToken()
         throws ETSdkException
     {
-        if (accessToken != null)
-        {
-            return accessToken;
+        String token = accessToken;
+        if (token != null && !isTokenExpired()) {
+            return token;
         }
         if (clientId == null || clientSecret == null) {
             // no-op
-            return null;
+            return token;
+        }
+        return refreshAccessToken(token);
+    }
+
+    private boolean isTokenExpired() {
+        long expirationTime = tokenExpirationTime;
+        return expirationTime != 0
+                && System.currentTimeMillis() >= expirationTime;
+    }
+
+    /**
+     * Requests a new access token unless the token has already
+     * been replaced since <code>staleToken</code> was read, so
+     * threads that see the same stale token refresh it only once.
+     * @param staleToken    The token the caller found to be stale (may be null)
+     * @return              The current access token
+     */
+    String refreshAccessToken(String staleToken)
+        throws ETSdkException
+    {
+        if (clientId == null || clientSecret == null) {
+            return accessToken;
+        }
+        synchronized (tokenLock) {
+            String token = accessToken;
+            if (token != null && token != staleToken && !isTokenExpired()) {
+                // another thread already refreshed it
+                return token;
+            }
+            return doRequestToken();
         }
+    }
 
+    private String doRequestToken()
+        throws ETSdkException
+    {
         logger.debug("requesting access token...");
 
         //
@@ -351,8 +455,8 @@ public class ETClient {
         JsonParser jsonParser = new JsonParser();
         jsonObject = jsonParser.parse(responsePayload).getAsJsonObject();
         logger.debug("received token:");
-        this.accessToken = jsonObject.get(accessTokenProperty).getAsString();
-        logger.debug("  accessToken: " + this.accessToken);
+        String token = jsonObject.get(accessTokenProperty).getAsString();
+        logger.debug("  accessToken: " + token);
         this.expiresIn = jsonObject.get(expiresInProperty).getAsInt();
         logger.debug("  expiresIn: " + this.expiresIn);
         JsonElement jsonElement = jsonObject.get("legacyToken");
@@ -372,11 +476,203 @@ public class ETClient {
         // we multiply expiresIn by 1000:
         //
 
-        tokenExpirationTime = System.currentTimeMillis() + (expiresIn * 1000);
+        long lifetime = expiresIn * 1000L;
+        tokenExpirationTime = System.currentTimeMillis() + lifetime;
 
         logger.debug("access token expires at " + new Date(tokenExpirationTime));
 
-        return accessToken;
+        //
+        // Publish the new token. REST requests read accessToken
+        // on every call; the SOAP connection carries it in a
+        // header, so it has to be told:
+        //
+
+        accessToken = token;
+        if (soapConnection != null) {
+            soapConnection.setAccessToken(token);
+        }
+
+        //
+        // Refresh the token in the background tokenRefreshSkew
+        // milliseconds before it expires (or halfway through its
+        // lifetime if that's shorter):
+        //
+
+        long delay = lifetime - tokenRefreshSkew;
+        if (delay <= 0) {
+            delay = lifetime / 2;
+        }
+        scheduleTokenRefresh(token, delay);
+
+        return token;
+    }
+
+    private void scheduleTokenRefresh(final String token, long delay) {
+        if (scheduledTokenRefresh != null) {
+            scheduledTokenRefresh.cancel(false);
+        }
+        if (closed) {
+            scheduledTokenRefresh = null;
+            return;
+        }
+        scheduledTokenRefresh = getTokenRefresher().schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshAccessToken(token);
+                } catch (Exception ex) {
+                    logger.warn("error refreshing access token in the background", ex);
+                    synchronized (tokenLock) {
+                        if (accessToken == token) {
+                            // try again later--request threads will
+                            // block on a refresh once it has expired
+                            scheduleTokenRefresh(token, TOKEN_REFRESH_RETRY_DELAY);
+                        }
+                    }
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService getTokenRefresher() {
+        if (tokenRefresher == null) {
+            ScheduledThreadPoolExecutor refresher = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fuelsdk-token-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // cancelled refreshes mustn't keep their (closed) clients reachable
+            refresher.setRemoveOnCancelPolicy(true);
+            tokenRefresher = refresher;
+        }
+        return tokenRefresher;
+    }
+
+    /**
+     * Releases the resources held by the client: stops refreshing
+     * the access token in the background, shuts down the executor
+     * used for background work, and closes the REST transport
+     * (and its pooled connections). The client can't be used
+     * once it has been closed.
+     */
+    @Override
+    public void close() {
+        synchronized (tokenLock) {
+            closed = true;
+            if (scheduledTokenRefresh != null) {
+                scheduledTokenRefresh.cancel(false);
+                scheduledTokenRefresh = null;
+            }
+        }
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        if (restTransport != null) {
+            restTransport.close();
+        }
+    }
+
+    private static ETRestTransport createRestTransport(ETConfiguration configuration)
+        throws ETSdkException
+    {
+        //
+        // restTransport is either "pooled" (the default),
+        // "urlconnection", or the name of a class implementing
+        // ETRestTransport with an ETConfiguration constructor:
+        //
+
+        String restTransport = configuration.get("restTransport");
+        if (restTransport == null || restTransport.equals("pooled")) {
+            return new ETPooledRestTransport(configuration);
+        }
+        if (restTransport.equals("urlconnection")) {
+            return new ETUrlConnectionRestTransport(configuration);
+        }
+        try {
+            return (ETRestTransport) Class.forName(restTransport)
+                    .getConstructor(ETConfiguration.class)
+                    .newInstance(configuration);
+        } catch (Exception ex) {
+            throw new ETSdkException("could not instantiate REST transport "
+                    + restTransport, ex);
+        }
+    }
+
+    /**
+     * @return  The ExecutorService used for background work
+     *          (e.g., prefetching pages)
+     */
+    public synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,
+                            "fuelsdk-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the asynchronous facade of the client. Its calls run
+     * on virtual threads where available (Java 21 and later), and
+     * on the client's shared executor otherwise. Setting
+     * asyncExecutor to "shared" forces the shared executor. Calls
+     * time out after asyncTimeout milliseconds if specified.
+     * @return  The ETAsyncClient
+     */
+    public synchronized ETAsyncClient async() {
+        if (asyncClient == null) {
+            Integer asyncTimeout = configuration.getInteger("asyncTimeout", 0);
+            asyncClient = new ETAsyncClient(this, createAsyncExecutor(), asyncTimeout);
+        }
+        return asyncClient;
+    }
+
+    /**
+     * @param executor  The Executor to run the calls on
+     * @return          The asynchronous facade of the client,
+     *                  running its calls on the executor
+     */
+    public ETAsyncClient async(Executor executor) {
+        return async().withExecutor(executor);
+    }
+
+    private Executor createAsyncExecutor() {
+        String asyncExecutor = configuration.get("asyncExecutor");
+        if (asyncExecutor == null || asyncExecutor.equals("virtual")) {
+            //
+            // Virtual threads (if the runtime has them) make waiting
+            // on thousands of outstanding calls cheap:
+            //
+
+            try {
+                Executor executor = (Executor) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                logger.debug("running asynchronous calls on virtual threads");
+                return executor;
+            } catch (NoSuchMethodException ex) {
+                logger.debug("virtual threads not available, "
+                        + "running asynchronous calls on the shared executor");
+            } catch (Exception ex) {
+                logger.warn("could not create virtual thread executor", ex);
+            }
+        } else if (!asyncExecutor.equals("shared")) {
+            logger.warn("unknown asyncExecutor " + asyncExecutor
+                    + ", running asynchronous calls on the shared executor");
+        }
+        return getExecutor();
     }
 
     public <T extends ETApiObject> T instantiate(Class <T> type)
@@ -393,6 +689,38 @@ public class ETClient {
         return object;
     }
 
+    /**
+     * Prepares a retrieve that is executed repeatedly with
+     * different values (see <code>ETPreparedQuery</code>).
+     * @param <T>           The type which extends from ETSoapObject
+     * @param type          The class type to retrieve
+     * @param filter        The filter, in which each unquoted <code>?</code> is a parameter
+     * @return              The ETPreparedQuery of type T
+     */
+    public <T extends ETSoapObject> ETPreparedQuery<T> prepare(Class<T> type,
+                                                               String... filter)
+        throws ETSdkException
+    {
+        return prepare(type, null, filter);
+    }
+
+    /**
+     * Prepares a retrieve that is executed repeatedly with
+     * different values (see <code>ETPreparedQuery</code>).
+     * @param <T>           The type which extends from ETSoapObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size
+     * @param filter        The filter, in which each unquoted <code>?</code> is a parameter
+     * @return              The ETPreparedQuery of type T
+     */
+    public <T extends ETSoapObject> ETPreparedQuery<T> prepare(Class<T> type,
+                                                               Integer pageSize,
+                                                               String... filter)
+        throws ETSdkException
+    {
+        return new ETPreparedQuery<T>(this, type, pageSize, filter);
+    }
+
     /**
      *
      * @param <T>           The type which extends from ETApiObject
@@ -449,55 +777,57 @@ public class ETClient {
      * @param filter        The ETFilter object to be used to retrieve objects
      * @return              The ETResponse of type T which extends from ETApiObject
      */
-    @SuppressWarnings("unchecked")
-    public <T extends ETApiObject> ETResponse<T> retrieve(Class<T> type,
-                                                          Integer page,
-                                                          Integer pageSize,
-                                                          String continueRequest,
-                                                          ETFilter filter)
+    public <T extends ETApiObject> ETResponse<T> retrieve(final Class<T> type,
+                                                          final Integer page,
+                                                          final Integer pageSize,
+                                                          final String continueRequest,
+                                                          final ETFilter filter)
         throws ETSdkException
     {
+        if (retrieveSingleFlight == null) {
+            return ETOperationRegistry.get(type).retrieve(this,
+                                                          page,
+                                                          pageSize,
+                                                          continueRequest,
+                                                          filter);
+        }
+
         //
-        // Find the retrieve method:
+        // Identical retrieves that are already in flight
+        // share the response of the first one:
         //
 
-        Method retrieve = null;
-        for (Class<T> t = type; t != null; t = (Class<T>) t.getSuperclass()) {
-            try {
-                retrieve = t.getDeclaredMethod("retrieve",
-                                               ETClient.class,  // client
-                                               Class.class,     // type
-                                               Integer.class,   // page
-                                               Integer.class,   // pageSize
-                                               String.class,    // continueRequest
-                                               ETFilter.class); // filter
-                if (retrieve != null) {
-                    break;
-                }
-            } catch (Exception ex) {
-                // ignore
+        String key = ETSingleFlight.retrieveKey(type,
+                                                page,
+                                                pageSize,
+                                                continueRequest,
+                                                filter);
+        final ETClient client = this;
+        return retrieveSingleFlight.execute(key, new ETSingleFlight.Loader<ETResponse<T>>() {
+            @Override
+            public ETResponse<T> load()
+                throws ETSdkException
+            {
+                return ETOperationRegistry.get(type).retrieve(client,
+                                                              page,
+                                                              pageSize,
+                                                              continueRequest,
+                                                              filter);
             }
-        }
-
-        if (retrieve == null) {
-            throw new ETSdkException("could not find retrieve method for type " + type);
-        }
+        });
+    }
 
-        ETResponse<T> response = null;
-        try {
-            // first argument of null means method is static
-            response = (ETResponse<T>) retrieve.invoke(null,
-                                                       this,
-                                                       type,
-                                                       page,
-                                                       pageSize,
-                                                       continueRequest,
-                                                       filter);
-        } catch (Exception ex) {
-            throw new ETSdkException("error invoking retrieve method for type " + type, ex);
+    /**
+     * @return  The number of retrieves that shared the response
+     *          of an identical retrieve already in flight (rather
+     *          than calling the API themselves); always 0 unless
+     *          coalesceRetrieves is true
+     */
+    public long getCoalescedRetrieveCount() {
+        if (retrieveSingleFlight == null) {
+            return 0;
         }
-
-        return response;
+        return retrieveSingleFlight.getCoalescedCount();
     }
 
     /**
@@ -579,6 +909,226 @@ public class ETClient {
         return retrieve(type, page, pageSize, f);
     }
 
+    /**
+     * Retrieves all objects matching the filter, requesting the
+     * pages after the first one concurrently (see
+     * <code>ETRestObject.retrieveAll</code>). The objects are
+     * returned in order.
+     * @param <T>           The type which extends from ETRestObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The ETResponse of type T
+     * @throws ETSdkException
+     */
+    public <T extends ETRestObject> ETResponse<T> retrieveAll(Class<T> type,
+                                                              Integer pageSize,
+                                                              ETFilter filter)
+        throws ETSdkException
+    {
+        return ETRestObject.retrieveAll(this, type, pageSize, null, filter);
+    }
+
+    /**
+     * Retrieves all objects matching the filter, requesting the
+     * pages after the first one concurrently and passing each
+     * page to the callback as soon as it arrives.
+     * @param <T>           The type which extends from ETRestObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @param callback      The PageCallback to pass the pages to
+     * @throws ETSdkException
+     */
+    public <T extends ETRestObject> void retrieveAll(Class<T> type,
+                                                     Integer pageSize,
+                                                     ETFilter filter,
+                                                     ETRestObject.PageCallback<T> callback)
+        throws ETSdkException
+    {
+        ETRestObject.retrieveAll(this, type, pageSize, null, filter, callback);
+    }
+
+    /**
+     * Returns an iterator over all objects matching the filter.
+     * Pages are retrieved as the iterator advances (the next page
+     * is prefetched in the background), so only about two pages
+     * are held in memory regardless of the number of objects.
+     * The iterator should be closed if it isn't exhausted.
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The ETPagingIterator of type T
+     */
+    public <T extends ETApiObject> ETPagingIterator<T> iterator(Class<T> type,
+                                                                Integer pageSize,
+                                                                ETFilter filter)
+    {
+        return new ETPagingIterator<T>(createPageSource(type, pageSize, filter),
+                                       getExecutor());
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The ETPagingIterator of type T
+     */
+    public <T extends ETApiObject> ETPagingIterator<T> iterator(Class<T> type,
+                                                                ETFilter filter)
+    {
+        return iterator(type, null, filter);
+    }
+
+    /**
+     * Returns a lazy stream of all objects matching the filter
+     * (see <code>iterator</code>). Closing the stream stops
+     * retrieving pages. Errors are thrown as
+     * <code>ETSdkRuntimeException</code>s.
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The Stream of type T
+     */
+    public <T extends ETApiObject> Stream<T> stream(Class<T> type,
+                                                    Integer pageSize,
+                                                    ETFilter filter)
+    {
+        final ETPagingIterator<T> iterator = iterator(type, pageSize, filter);
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                iterator.close();
+            }
+        });
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The Stream of type T
+     */
+    public <T extends ETApiObject> Stream<T> stream(Class<T> type,
+                                                    ETFilter filter)
+    {
+        return stream(type, null, filter);
+    }
+
+    /**
+     * Returns a publisher of all objects matching the filter that
+     * retrieves pages only as the subscriber requests objects
+     * (see <code>ETPublisher</code>).
+     * @param <T>               The type which extends from ETApiObject
+     * @param type              The class type to retrieve
+     * @param pageSize          The page size (null for the default)
+     * @param filter            The ETFilter object to be used to retrieve objects
+     * @param maxBufferedPages  The maximum number of pages buffered
+     * @return                  The ETPublisher of type T
+     */
+    public <T extends ETApiObject> ETPublisher<T> publisher(Class<T> type,
+                                                            Integer pageSize,
+                                                            ETFilter filter,
+                                                            int maxBufferedPages)
+    {
+        return new ETPublisher<T>(createPageSource(type, pageSize, filter),
+                                  getExecutor(),
+                                  maxBufferedPages);
+    }
+
+    /**
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The ETPublisher of type T (buffering
+     *                      at most two pages)
+     */
+    public <T extends ETApiObject> ETPublisher<T> publisher(Class<T> type,
+                                                            ETFilter filter)
+    {
+        return publisher(type, null, filter, DEFAULT_MAX_BUFFERED_PAGES);
+    }
+
+    /**
+     * Retrieves the objects whose property has one of the given
+     * values (e.g., subscribers by key) using as few
+     * <code>IN</code> filters as the transport allows, retrieved
+     * concurrently (see <code>ETKeyLookup</code>). REST objects
+     * can only be looked up by their primary key, one at a time.
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param property      The property to look up the objects by
+     * @param keys          The values of the property
+     * @return              The objects found, by key (keys that
+     *                      weren't found are left out)
+     */
+    public <T extends ETApiObject> Map<String, T> retrieveByKeys(Class<T> type,
+                                                                 String property,
+                                                                 Collection<String> keys)
+        throws ETSdkException
+    {
+        return new ETKeyLookup<T>(this, getExecutor(), configuration, type, property)
+                .execute(keys);
+    }
+
+    /**
+     * Creates the PageSource that retrieves the pages of a paged
+     * retrieve (used by stream, publisher, and retrieveByKeys).
+     * @param <T>           The type which extends from ETApiObject
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param filter        The ETFilter object to be used to retrieve objects
+     * @return              The PageSource of type T
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    <T extends ETApiObject> ETPagingIterator.PageSource<T> createPageSource(final Class<T> type,
+                                                                            final Integer pageSize,
+                                                                            final ETFilter filter)
+    {
+        final ETClient client = this;
+        if (ETRestObject.class.isAssignableFrom(type)) {
+            //
+            // REST objects are paged using $page:
+            //
+
+            final Integer restPageSize =
+                    pageSize != null ? pageSize : ETRestObject.PAGE_SIZE;
+            return new ETPagingIterator.PageSource<T>() {
+                @Override
+                public ETResponse<T> retrievePage(ETResponse<T> previous)
+                    throws ETSdkException
+                {
+                    int page = previous == null ? 1 : previous.getPage() + 1;
+                    return ETRestObject.retrieve(client,
+                                                 (Class) type,
+                                                 page,
+                                                 restPageSize,
+                                                 filter);
+                }
+            };
+        }
+
+        //
+        // SOAP objects are paged using the request ID of the
+        // previous page as continue request:
+        //
+
+        return new ETPagingIterator.PageSource<T>() {
+            @Override
+            public ETResponse<T> retrievePage(ETResponse<T> previous)
+                throws ETSdkException
+            {
+                String continueRequest =
+                        previous == null ? null : previous.getRequestId();
+                return retrieve(type, null, pageSize, continueRequest, filter);
+            }
+        };
+    }
+
     /**
      *
      * @param <T>           The type which extends from ETApiObject
@@ -775,7 +1325,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> create(T... objects)
         throws ETSdkException
     {
-        return createUpdateDelete("create", Arrays.asList(objects));
+        return create(Arrays.asList(objects));
     }
 
     /**
@@ -786,7 +1336,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> create(List<T> objects)
         throws ETSdkException
     {
-        return createUpdateDelete("create", objects);
+        return operations(objects).create(this, objects);
     }
 
     /**
@@ -797,7 +1347,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> update(T... objects)
         throws ETSdkException
     {
-        return createUpdateDelete("update", Arrays.asList(objects));
+        return update(Arrays.asList(objects));
     }
 
     /**
@@ -808,7 +1358,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> update(List<T> objects)
         throws ETSdkException
     {
-        return createUpdateDelete("update", objects);
+        return operations(objects).update(this, objects);
     }
 
     /**
@@ -819,7 +1369,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> delete(T... objects)
         throws ETSdkException
     {
-        return createUpdateDelete("delete", Arrays.asList(objects));
+        return delete(Arrays.asList(objects));
     }
 
     /**
@@ -830,7 +1380,7 @@ public class ETClient {
     public <T extends ETApiObject> ETResponse<T> delete(List<T> objects)
         throws ETSdkException
     {
-        return createUpdateDelete("delete", objects);
+        return operations(objects).delete(this, objects);
     }
 
     /**
@@ -926,42 +1476,8 @@ public class ETClient {
         return delete(type, ETFilter.parse(filter));
     }
 
-    @SuppressWarnings("unchecked")
-    private <T extends ETApiObject> ETResponse<T> createUpdateDelete(String method,
-                                                                     List<T> objects)
-        throws ETSdkException
-    {
-        Class<T> type = (Class<T>) objects.get(0).getClass();
-
-        //
-        // Find the appropriate method (create, update, or delete):
-        //
-
-        Method m = null;
-        for (Class<T> t = type; t != null; t = (Class<T>) t.getSuperclass()) {
-            try {
-                m = t.getDeclaredMethod(method, ETClient.class, List.class);
-                if (m != null) {
-                    break;
-                }
-            } catch (Exception ex) {
-                // ignore
-            }
-        }
-
-        if (m == null) {
-            throw new ETSdkException("could not find " + method + " method for type " + type);
-        }
-
-        ETResponse<T> response = null;
-        try {
-            // first argument of null means method is static
-            response = (ETResponse<T>) m.invoke(null, this, objects);
-        } catch (Exception ex) {
-            throw new ETSdkException("error invoking " + method + " method for type " + type, ex);
-        }
-
-        return response;
+    private ETOperationRegistry.Operations operations(List<? extends ETApiObject> objects) {
+        return ETOperationRegistry.get(objects.get(0).getClass());
     }
 
     public ETPreview getPreviewForEmail(String id) throws ETSdkException
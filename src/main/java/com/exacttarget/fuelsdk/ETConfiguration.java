@@ -91,6 +91,25 @@ public class ETConfiguration {
         return properties.getProperty(key);
     }
 
+    /**
+    * @param key            The key of a property.
+    * @param defaultValue   The value to return if the key is unset or not an integer.
+    * @return               The integer value of the key.
+    */
+    public Integer getInteger(String key, Integer defaultValue) {
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            // Ignore--this just means the value specified in
+            // the fuelsdk.properties file is not an integer.
+            return defaultValue;
+        }
+    }
+
     /** 
     * @param key        The key of a property.
     * @param value      The value of the key.
@@ -43,13 +43,19 @@ import com.exacttarget.fuelsdk.internal.APIObject;
 import com.exacttarget.fuelsdk.internal.APIProperty;
 import com.exacttarget.fuelsdk.internal.DataExtension;
 import com.exacttarget.fuelsdk.internal.DataExtensionObject;
+import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * An <code>ETDataExtension</code> object represents a data extension
@@ -66,6 +72,10 @@ import java.util.List;
 public class ETDataExtension extends ETSoapObject {
     private static final Logger logger = LoggerFactory.getLogger(ETDataExtension.class);
 
+    private static final int DEFAULT_BULK_BATCH_SIZE = 500;
+    private static final int DEFAULT_BULK_BATCH_BYTES = 1048576;
+    private static final int DEFAULT_BULK_CONCURRENCY = 4;
+
     @ExternalName("id")
     @InternalName("objectID")
     private String id = null;
@@ -387,6 +397,75 @@ public class ETDataExtension extends ETSoapObject {
         setFolderId(categoryId);
     }
 
+    /**
+     * Creates data extensions (see <code>ETSoapObject.create</code>)
+     * and invalidates their cached columns.
+     * @param <T>               The type which extends from ETSoapObject
+     * @param client            The ETClient object
+     * @param objects           The List of data extensions to create
+     * @return                  The ETResponse of type T
+     * @throws ETSdkException
+     */
+    public static <T extends ETSoapObject> ETResponse<T> create(ETClient client,
+                                                                List<T> objects)
+        throws ETSdkException
+    {
+        try {
+            return ETSoapObject.create(client, objects);
+        } finally {
+            invalidateColumns(client, objects);
+        }
+    }
+
+    /**
+     * Updates data extensions (see <code>ETSoapObject.update</code>)
+     * and invalidates their cached columns.
+     * @param <T>               The type which extends from ETSoapObject
+     * @param client            The ETClient object
+     * @param objects           The List of data extensions to update
+     * @return                  The ETResponse of type T
+     * @throws ETSdkException
+     */
+    public static <T extends ETSoapObject> ETResponse<T> update(ETClient client,
+                                                                List<T> objects)
+        throws ETSdkException
+    {
+        try {
+            return ETSoapObject.update(client, objects);
+        } finally {
+            invalidateColumns(client, objects);
+        }
+    }
+
+    /**
+     * Deletes data extensions (see <code>ETSoapObject.delete</code>)
+     * and invalidates their cached columns.
+     * @param <T>               The type which extends from ETSoapObject
+     * @param client            The ETClient object
+     * @param objects           The List of data extensions to delete
+     * @return                  The ETResponse of type T
+     * @throws ETSdkException
+     */
+    public static <T extends ETSoapObject> ETResponse<T> delete(ETClient client,
+                                                                List<T> objects)
+        throws ETSdkException
+    {
+        try {
+            return ETSoapObject.delete(client, objects);
+        } finally {
+            invalidateColumns(client, objects);
+        }
+    }
+
+    private static void invalidateColumns(ETClient client, List<? extends ETSoapObject> objects) {
+        ETDataExtensionSchemaCache cache = client.getDataExtensionSchemaCache();
+        for (ETSoapObject object : objects) {
+            if (object instanceof ETDataExtension) {
+                cache.invalidate(((ETDataExtension) object).getKey());
+            }
+        }
+    }
+
     /**
      *
      * @param client        The ETClient object
@@ -456,6 +535,96 @@ public class ETDataExtension extends ETSoapObject {
                                                         String continueRequest,
                                                         ETFilter filter)
         throws ETSdkException
+    {
+        String name = resolveName(client, dataExtension, filter);
+
+        ETResponse<ETDataExtensionRow> response =
+                ETSoapObject.retrieve(client,
+                                      "DataExtensionObject[" + name + "]",
+                                      filter,
+                                      pageSize,
+                                      continueRequest,
+                                      ETDataExtensionRow.class);
+        return response;
+    }
+
+    /**
+     * Selects one page of rows, handing each row to the callback
+     * as soon as it has been read off the response (so only one
+     * row is in memory at a time). To select the next page, pass
+     * the request ID of the response as continueRequest.
+     * @param client            The ETClient object
+     * @param dataExtension     The data extension ("key=..." or "name=...")
+     * @param pageSize          The page size
+     * @param continueRequest   The request ID of the previous page (or null)
+     * @param filter            The ETFilter object
+     * @param callback          The ObjectCallback to receive the rows
+     * @return                  The ETResponse of ETDataExtensionRow (without results)
+     * @throws ETSdkException
+     */
+    public static ETResponse<ETDataExtensionRow> select(ETClient client,
+                                                        String dataExtension,
+                                                        Integer pageSize,
+                                                        String continueRequest,
+                                                        ETFilter filter,
+                                                        ObjectCallback<? super ETDataExtensionRow> callback)
+        throws ETSdkException
+    {
+        String name = resolveName(client, dataExtension, filter);
+
+        return ETSoapObject.retrieve(client,
+                                     "DataExtensionObject[" + name + "]",
+                                     filter,
+                                     pageSize,
+                                     continueRequest,
+                                     ETDataExtensionRow.class,
+                                     callback);
+    }
+
+    /**
+     * Selects one page of rows into a columnar ETDataExtensionPage,
+     * which takes far less memory than the ETDataExtensionRows
+     * returned by <code>select</code>. To retrieve the next page,
+     * pass the request ID of the previous one as continueRequest.
+     * @param client            The ETClient object
+     * @param dataExtension     The data extension ("key=..." or "name=...")
+     * @param pageSize          The page size
+     * @param continueRequest   The request ID of the previous page (or null)
+     * @param filter            The ETFilter object
+     * @return                  The ETDataExtensionPage
+     * @throws ETSdkException
+     */
+    public static ETDataExtensionPage selectPage(ETClient client,
+                                                 String dataExtension,
+                                                 Integer pageSize,
+                                                 String continueRequest,
+                                                 ETFilter filter)
+        throws ETSdkException
+    {
+        String name = resolveName(client, dataExtension, filter);
+
+        RetrieveResponseMsg retrieveResponseMsg =
+                ETSoapObject.retrieveInternal(client,
+                                              "DataExtensionObject[" + name + "]",
+                                              filter,
+                                              pageSize,
+                                              continueRequest,
+                                              ETDataExtensionRow.class);
+        return ETDataExtensionPage.fromInternal(retrieveResponseMsg);
+    }
+
+    /**
+     * @param client            The ETClient object
+     * @param dataExtension     The data extension ("key=..." or "name=...")
+     * @param filter            The ETFilter object (all columns are
+     *                          added to its properties if it has none)
+     * @return                  The name to retrieve rows by
+     * @throws ETSdkException
+     */
+    private static String resolveName(ETClient client,
+                                      String dataExtension,
+                                      ETFilter filter)
+        throws ETSdkException
     {
         String name = null;
 
@@ -488,14 +657,7 @@ public class ETDataExtension extends ETSoapObject {
             throw new ETSdkException("invalid data extension filter string");
         }
 
-        ETResponse<ETDataExtensionRow> response =
-                ETSoapObject.retrieve(client,
-                                      "DataExtensionObject[" + name + "]",
-                                      filter,
-                                      pageSize,
-                                      continueRequest,
-                                      ETDataExtensionRow.class);
-        return response;
+        return name;
     }
 
     /**
@@ -678,6 +840,21 @@ public class ETDataExtension extends ETSoapObject {
         return select(ETFilter.parse(filter), page, pageSize, columns);
     }
 
+    /**
+     * @param pageSize          The page size
+     * @param continueRequest   The request ID of the previous page (or null)
+     * @param filter            The ETFilter object
+     * @return                  The ETDataExtensionPage
+     * @throws ETSdkException
+     */
+    public ETDataExtensionPage selectPage(Integer pageSize,
+                                          String continueRequest,
+                                          ETFilter filter)
+        throws ETSdkException
+    {
+        return selectPage(getClient(), "key=" + getKey(), pageSize, continueRequest, filter);
+    }
+
     /**
      * @param rows              The filter to be used to insert rows as variable arguments of ETDataExtensionRow
      * @return                  The ETResponse of ETDataExtensionRow
@@ -710,6 +887,74 @@ public class ETDataExtension extends ETSoapObject {
         return super.create(getClient(), rows);
     }
 
+    /**
+     * Inserts a large number of rows. The rows are sent in batches
+     * of at most bulkBatchSize rows and bulkBatchBytes (estimated)
+     * bytes, with at most bulkConcurrency batches in flight. Rows
+     * are read from the iterator only as batches are sent.
+     * @param rows              The rows to insert
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (including the rows that failed)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> load(Iterator<ETDataExtensionRow> rows)
+        throws ETSdkException
+    {
+        return load(rows, null, null, null);
+    }
+
+    /**
+     * @param rows              The rows to insert
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (including the rows that failed)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> load(Stream<ETDataExtensionRow> rows)
+        throws ETSdkException
+    {
+        return load(rows.iterator(), null, null, null);
+    }
+
+    /**
+     * @param rows              The rows to insert
+     * @param batchSize         The maximum number of rows per batch
+     *                          (null for the bulkBatchSize setting)
+     * @param batchBytes        The maximum estimated size of a batch
+     *                          (null for the bulkBatchBytes setting)
+     * @param concurrency       The maximum number of batches in flight
+     *                          (null for the bulkConcurrency setting)
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (including the rows that failed)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> load(Iterator<ETDataExtensionRow> rows,
+                                                   Integer batchSize,
+                                                   Integer batchBytes,
+                                                   Integer concurrency)
+        throws ETSdkException
+    {
+        final ETClient client = getClient();
+        return createBulkOperation(client, batchSize, batchBytes, concurrency)
+                .execute(rows, new ETBulkOperation.Batch<ETDataExtensionRow>() {
+            @Override
+            public int estimateSize(ETDataExtensionRow row) {
+                return estimateRowSize(row);
+            }
+
+            @Override
+            public ETResponse<ETDataExtensionRow> send(List<ETDataExtensionRow> rows)
+                throws ETSdkException
+            {
+                for (ETDataExtensionRow row : rows) {
+                    if (row.getDataExtensionKey() == null) {
+                        row.setDataExtensionKey(key);
+                    }
+                }
+                return ETSoapObject.create(client, rows);
+            }
+        });
+    }
+
     /**
      * @param rows              The filter to be used to update rows as variable arguments of ETDataExtensionRow
      * @return                  The ETResponse of ETDataExtensionRow
@@ -761,35 +1006,181 @@ public class ETDataExtension extends ETSoapObject {
     public ETResponse<ETDataExtensionRow> delete(List<ETDataExtensionRow> rows)
         throws ETSdkException
     {
-        List<APIObject> internalRows = new ArrayList<APIObject>();
+        List<String> primaryKeyColumnNames = retrievePrimaryKeyColumnNames();
 
+        List<APIObject> internalRows = new ArrayList<APIObject>();
         for (ETDataExtensionRow row : rows) {
-            //
-            // We hand construct this one, since all we need
-            // to pass in are the primary keys, and we pass them
-            // in to DeleteRequest differently (in the Keys
-            // property) than we received it from
-            // RetrieveRequest (in the Properties property):
-            //
+            internalRows.add(toDeleteObject(row, primaryKeyColumnNames));
+        }
+
+        // call delete method that operates on internal objects
+        return super.delete(getClient(), internalRows, true);
+    }
+
+    /**
+     * Deletes a large number of rows. The primary key columns are
+     * retrieved once, and the rows are sent in batches of at most
+     * bulkBatchSize rows and bulkBatchBytes (estimated) bytes,
+     * with at most bulkConcurrency batches in flight.
+     * @param rows              The rows to delete
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (including the rows that failed)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> delete(Iterator<ETDataExtensionRow> rows)
+        throws ETSdkException
+    {
+        return delete(rows, retrievePrimaryKeyColumnNames());
+    }
+
+    /**
+     * Deletes rows by primary key without retrieving the data
+     * extension columns. Each key maps the primary key column
+     * names to the values of one row. The keys are sent in
+     * batches like <code>delete(Iterator)</code>.
+     * @param keys              The primary keys of the rows to delete
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (the failed rows hold only the keys)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> deleteByKeys(Collection<Map<String, String>> keys)
+        throws ETSdkException
+    {
+        final Iterator<Map<String, String>> iterator = keys.iterator();
+        return delete(new Iterator<ETDataExtensionRow>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public ETDataExtensionRow next() {
+                return new KeyRow(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, null);
+    }
+
+    /**
+     * Deletes rows of a data extension with a single primary key
+     * column without retrieving the data extension columns.
+     * @param column            The primary key column name
+     * @param values            The primary key values of the rows to delete
+     * @return                  The ETBulkResponse of ETDataExtensionRow
+     *                          (the failed rows hold only the keys)
+     * @throws ETSdkException
+     */
+    public ETBulkResponse<ETDataExtensionRow> deleteByKeys(String column,
+                                                           Collection<String> values)
+        throws ETSdkException
+    {
+        List<Map<String, String>> keys = new ArrayList<Map<String, String>>(values.size());
+        for (String value : values) {
+            keys.add(Collections.singletonMap(column, value));
+        }
+        return deleteByKeys(keys);
+    }
+
+    /**
+     * @param rows                  The rows to delete
+     * @param primaryKeyColumnNames The primary key column names
+     *                              (null if the rows are KeyRows)
+     */
+    private ETBulkResponse<ETDataExtensionRow> delete(Iterator<ETDataExtensionRow> rows,
+                                                      final List<String> primaryKeyColumnNames)
+        throws ETSdkException
+    {
+        final ETClient client = getClient();
+        return createBulkOperation(client, null, null, null)
+                .execute(rows, new ETBulkOperation.Batch<ETDataExtensionRow>() {
+            @Override
+            public int estimateSize(ETDataExtensionRow row) {
+                return estimateRowSize(row);
+            }
 
-            DataExtensionObject internalRow = new DataExtensionObject();
-            DataExtensionObject.Keys keys = new DataExtensionObject.Keys();
-            hydrate(); // make sure we've retrieved all columns
-            for (ETDataExtensionColumn column : columns) {
-                if (column.getIsPrimaryKey()) {
-                    APIProperty property = new APIProperty();
-                    property.setName(column.getName());
-                    property.setValue(row.getColumn(property.getName()));
-                    keys.getKey().add(property);
+            @Override
+            public ETResponse<ETDataExtensionRow> send(List<ETDataExtensionRow> rows)
+                throws ETSdkException
+            {
+                List<APIObject> internalRows = new ArrayList<APIObject>(rows.size());
+                for (ETDataExtensionRow row : rows) {
+                    if (primaryKeyColumnNames == null) {
+                        internalRows.add(toDeleteObject(((KeyRow) row).key));
+                    } else {
+                        internalRows.add(toDeleteObject(row, primaryKeyColumnNames));
+                    }
                 }
+                return ETSoapObject.delete(client, internalRows, true);
             }
-            internalRow.setName(name);
-            internalRow.setKeys(keys);
-            internalRows.add(internalRow);
+        });
+    }
+
+    /**
+     * @param row                   The row to delete
+     * @param primaryKeyColumnNames The primary key column names
+     * @return                      The DataExtensionObject to pass to DeleteRequest
+     */
+    private DataExtensionObject toDeleteObject(ETDataExtensionRow row,
+                                               Collection<String> primaryKeyColumnNames)
+    {
+        //
+        // We hand construct this one, since all we need
+        // to pass in are the primary keys, and we pass them
+        // in to DeleteRequest differently (in the Keys
+        // property) than we received it from
+        // RetrieveRequest (in the Properties property):
+        //
+
+        DataExtensionObject internalRow = new DataExtensionObject();
+        DataExtensionObject.Keys keys = new DataExtensionObject.Keys();
+        for (String columnName : primaryKeyColumnNames) {
+            APIProperty property = new APIProperty();
+            property.setName(columnName);
+            property.setValue(row.getColumn(columnName));
+            keys.getKey().add(property);
         }
+        internalRow.setName(name);
+        internalRow.setKeys(keys);
+        return internalRow;
+    }
 
-        // call delete method that operates on internal objects
-        return super.delete(getClient(), internalRows, true);
+    /**
+     * @param key                   The primary key column names and values
+     * @return                      The DataExtensionObject to pass to DeleteRequest
+     */
+    private DataExtensionObject toDeleteObject(Map<String, String> key) {
+        DataExtensionObject internalRow = new DataExtensionObject();
+        DataExtensionObject.Keys keys = new DataExtensionObject.Keys();
+        for (Map.Entry<String, String> entry : key.entrySet()) {
+            APIProperty property = new APIProperty();
+            property.setName(entry.getKey());
+            property.setValue(entry.getValue());
+            keys.getKey().add(property);
+        }
+        internalRow.setName(name);
+        internalRow.setKeys(keys);
+        return internalRow;
+    }
+
+    //
+    // A row holding a primary key for deleteByKeys. The row
+    // columns (lower cased) are what the failed rows report,
+    // the key is what is sent, with the column names as given:
+    //
+
+    private static class KeyRow extends ETDataExtensionRow {
+        private final Map<String, String> key;
+
+        private KeyRow(Map<String, String> key) {
+            this.key = key;
+            for (Map.Entry<String, String> entry : key.entrySet()) {
+                setColumn(entry.getKey(), entry.getValue(), false);
+            }
+        }
     }
 
     /**
@@ -838,16 +1229,31 @@ public class ETDataExtension extends ETSoapObject {
     }
 
     /**
+     * Returns the columns of the data extension, from the client's
+     * ETDataExtensionSchemaCache if they were retrieved recently.
      * @param client        The ETClient object
      * @param key           The key
      * @return              The List of ETDataExtensionColumn
      * @throws ETSdkException
      */
-    public static List<ETDataExtensionColumn> retrieveColumns(ETClient client,
+    public static List<ETDataExtensionColumn> retrieveColumns(final ETClient client,
                                                               String key)
         throws ETSdkException
     {
+        return client.getDataExtensionSchemaCache().get(key, new ETDataExtensionSchemaCache.Loader() {
+            @Override
+            public List<ETDataExtensionColumn> load(String key)
+                throws ETSdkException
+            {
+                return retrieveColumnsUncached(client, key);
+            }
+        });
+    }
 
+    private static List<ETDataExtensionColumn> retrieveColumnsUncached(ETClient client,
+                                                                       String key)
+        throws ETSdkException
+    {
         //
         // Retrieve all column objects with the specified key:
         //
@@ -895,6 +1301,24 @@ public class ETDataExtension extends ETSoapObject {
         return getColumnNames(retrieveColumns(client, key));
     }
 
+    /**
+     * @return              The names of the primary key columns
+     *                      (retrieved from the data extension)
+     */
+    private List<String> retrievePrimaryKeyColumnNames()
+        throws ETSdkException
+    {
+        hydrate(); // make sure we've retrieved all columns
+
+        List<String> primaryKeyColumnNames = new ArrayList<String>();
+        for (ETDataExtensionColumn column : columns) {
+            if (column.getIsPrimaryKey()) {
+                primaryKeyColumnNames.add(column.getName());
+            }
+        }
+        return primaryKeyColumnNames;
+    }
+
     /**
      * @param filter        The filter to be used to get matching rows
      * @return              The List of ETDataExtensionRow which are matched
@@ -904,26 +1328,20 @@ public class ETDataExtension extends ETSoapObject {
     {
         List<ETDataExtensionRow> rows = new ArrayList<ETDataExtensionRow>();
 
-        hydrate(); // make sure we've retrieved all columns
-
         //
         // Only retrieve primary key columns:
         //
 
-        List<String> primaryKeyColumnNames = new ArrayList<String>();
-        for (ETDataExtensionColumn column : columns) {
-            if (column.getIsPrimaryKey()) {
-                primaryKeyColumnNames.add(column.getName());
-            }
-        }
+        List<String> primaryKeyColumnNames = retrievePrimaryKeyColumnNames();
 
         int page = 1;
         int page_size = 2500;
 
+        ETFilter parsedFilter = ETFilter.parse(filter);
+        parsedFilter.setProperties(primaryKeyColumnNames);
+
         ETResponse<ETDataExtensionRow> response = null;
         do {
-            ETFilter parsedFilter = ETFilter.parse(filter);
-            parsedFilter.setProperties(primaryKeyColumnNames);
             response = select(page++, page_size, parsedFilter);
             rows.addAll(response.getObjects());
         } while (response.hasMoreResults() == true);
@@ -931,6 +1349,51 @@ public class ETDataExtension extends ETSoapObject {
         return rows;
     }
 
+    private static ETBulkOperation<ETDataExtensionRow> createBulkOperation(ETClient client,
+                                                                           Integer batchSize,
+                                                                           Integer batchBytes,
+                                                                           Integer concurrency)
+    {
+        ETConfiguration configuration = client.getConfiguration();
+        if (batchSize == null) {
+            batchSize = configuration.getInteger("bulkBatchSize",
+                    DEFAULT_BULK_BATCH_SIZE);
+        }
+        if (batchBytes == null) {
+            batchBytes = configuration.getInteger("bulkBatchBytes",
+                    DEFAULT_BULK_BATCH_BYTES);
+        }
+        if (concurrency == null) {
+            concurrency = configuration.getInteger("bulkConcurrency",
+                    DEFAULT_BULK_CONCURRENCY);
+        }
+        return new ETBulkOperation<ETDataExtensionRow>(client.getExecutor(),
+                                                       batchSize,
+                                                       batchBytes,
+                                                       concurrency);
+    }
+
+    /**
+     * @param row   The ETDataExtensionRow object
+     * @return      The approximate size of the row in a SOAP envelope
+     */
+    private static int estimateRowSize(ETDataExtensionRow row) {
+        // <Objects xsi:type="DataExtensionObject"><CustomerKey>..</CustomerKey><Properties>..</Properties></Objects>
+        int size = 128;
+        if (row.getDataExtensionKey() != null) {
+            size += row.getDataExtensionKey().length();
+        }
+        for (String name : row.getColumnNames()) {
+            // <Property><Name>..</Name><Value>..</Value></Property>
+            size += 56 + name.length();
+            String value = row.getColumn(name);
+            if (value != null) {
+                size += value.length();
+            }
+        }
+        return size;
+    }
+
     /**
      * @param columns The List of ETDataExtensionColumn object
      * @return  The List of ETDataExtension Column names
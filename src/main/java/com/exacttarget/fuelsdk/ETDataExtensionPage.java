@@ -0,0 +1,398 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.exacttarget.fuelsdk.internal.APIObject;
+import com.exacttarget.fuelsdk.internal.APIProperty;
+import com.exacttarget.fuelsdk.internal.DataExtensionObject;
+import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
+
+/**
+ * An <code>ETDataExtensionPage</code> object holds one page of
+ * data extension rows in columnar form: the column names are
+ * stored once per page, the values in one array per column, and
+ * columns with few distinct values are dictionary encoded (each
+ * distinct value is stored once, and each row holds a one byte
+ * code). This takes a fraction of the memory of the equivalent
+ * <code>ETDataExtensionRow</code>s, each of which holds a map of
+ * its own. Rows are accessed through lightweight
+ * <code>Row</code> views.
+ */
+
+public class ETDataExtensionPage implements Iterable<ETDataExtensionPage.Row> {
+    private static final int MAX_DICTIONARY_SIZE = 256;
+
+    private String requestId = null;
+    private ETResult.Status status = null;
+    private String responseCode = null;
+    private boolean moreResults = false;
+
+    private final List<String> columnNames;
+    private final Map<String, Integer> columnIndexes;
+    private final Column[] columns;
+    private final int size;
+
+    private ETDataExtensionPage(List<String> columnNames,
+                                Map<String, Integer> columnIndexes,
+                                Column[] columns,
+                                int size)
+    {
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.columnIndexes = columnIndexes;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    /**
+     * Builds a page from a data extension row retrieve response.
+     * @param retrieveResponseMsg   The RetrieveResponseMsg object
+     * @return                      The ETDataExtensionPage
+     */
+    static ETDataExtensionPage fromInternal(RetrieveResponseMsg retrieveResponseMsg) {
+        Builder builder = new Builder();
+        for (APIObject internalObject : retrieveResponseMsg.getResults()) {
+            DataExtensionObject internalRow = (DataExtensionObject) internalObject;
+            builder.addRow(internalRow.getProperties() != null
+                    ? internalRow.getProperties().getProperty()
+                    : Collections.<APIProperty>emptyList());
+        }
+        ETDataExtensionPage page = builder.build();
+        page.requestId = retrieveResponseMsg.getRequestID();
+        String overallStatus = retrieveResponseMsg.getOverallStatus();
+        if (overallStatus.equals("OK")) {
+            page.status = ETResult.Status.OK;
+        } else if (overallStatus.equals("Error")) {
+            page.status = ETResult.Status.ERROR;
+        }
+        page.responseCode = overallStatus;
+        page.moreResults = ETSoapObject.MORE_DATA_AVAILABLE.equals(overallStatus);
+        return page;
+    }
+
+    /**
+     * @return The Request Identifier (the continue request for the next page).
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return The Status of the retrieve.
+     */
+    public ETResult.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The response code of the retrieve.
+     */
+    public String getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * @return true if there are more pages, false otherwise
+     */
+    public boolean hasMoreResults() {
+        return moreResults;
+    }
+
+    /**
+     * @return The number of rows in the page.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The (lower case) column names shared by all rows.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @param index     The row index
+     * @param name      The column name
+     * @return          The value of the column in the row
+     */
+    public String getValue(int index, String name) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        Integer column = columnIndexes.get(name.toLowerCase());
+        return column != null ? columns[column].get(index) : null;
+    }
+
+    /**
+     * @param name      The column name
+     * @return          Whether the column is dictionary encoded
+     */
+    boolean isDictionaryEncoded(String name) {
+        Integer column = columnIndexes.get(name.toLowerCase());
+        return column != null && columns[column] instanceof DictionaryColumn;
+    }
+
+    /**
+     * @param index     The row index
+     * @return          The Row view of the row
+     */
+    public Row get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return new Row(index);
+    }
+
+    /**
+     * @return  The rows as a List of Row views
+     */
+    public List<Row> getRows() {
+        return new AbstractList<Row>() {
+            @Override
+            public Row get(int index) {
+                return ETDataExtensionPage.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        return getRows().iterator();
+    }
+
+    /**
+     * A <code>Row</code> is a view of one row of the page.
+     */
+    public class Row {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        /**
+         * @param name  The column name
+         * @return      The value of the column
+         */
+        public String getColumn(String name) {
+            return getValue(index, name);
+        }
+
+        /**
+         * @return      The (lower case) column names
+         */
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        /**
+         * @return      A (standalone) ETDataExtensionRow copy of the row
+         */
+        public ETDataExtensionRow toRow() {
+            ETDataExtensionRow row = new ETDataExtensionRow();
+            for (int i = 0; i < columns.length; i++) {
+                String value = columns[i].get(index);
+                if (value != null) {
+                    row.setColumn(columnNames.get(i), value, false);
+                }
+            }
+            return row;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder string = new StringBuilder("{");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    string.append(", ");
+                }
+                string.append(columnNames.get(i)).append("=").append(columns[i].get(index));
+            }
+            return string.append("}").toString();
+        }
+    }
+
+    private static abstract class Column {
+        abstract String get(int index);
+    }
+
+    private static class PlainColumn extends Column {
+        private final String[] values;
+
+        private PlainColumn(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        String get(int index) {
+            return values[index];
+        }
+    }
+
+    private static class DictionaryColumn extends Column {
+        private final String[] dictionary;
+        private final byte[] codes;
+
+        private DictionaryColumn(String[] dictionary, byte[] codes) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        @Override
+        String get(int index) {
+            return dictionary[codes[index] & 0xff];
+        }
+    }
+
+    /**
+     * Accumulates rows and builds the columns.
+     */
+    static class Builder {
+        private final List<String> columnNames = new ArrayList<String>();
+        private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+        private final List<ColumnBuilder> columns = new ArrayList<ColumnBuilder>();
+        private int size = 0;
+
+        /**
+         * @param properties    The name/value pairs of the row
+         */
+        void addRow(List<APIProperty> properties) {
+            for (APIProperty property : properties) {
+                addValue(property.getName(), property.getValue());
+            }
+            size++;
+        }
+
+        /**
+         * @param values        The column values of the row
+         */
+        void addRow(Map<String, String> values) {
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                addValue(value.getKey(), value.getValue());
+            }
+            size++;
+        }
+
+        private void addValue(String name, String value) {
+            String columnName = name.toLowerCase();
+            Integer index = columnIndexes.get(columnName);
+            if (index == null) {
+                index = columns.size();
+                columnIndexes.put(columnName, index);
+                columnNames.add(columnName);
+                columns.add(new ColumnBuilder());
+            }
+            columns.get(index).set(size, value);
+        }
+
+        ETDataExtensionPage build() {
+            Column[] built = new Column[columns.size()];
+            for (int i = 0; i < built.length; i++) {
+                built[i] = columns.get(i).build(size);
+            }
+            return new ETDataExtensionPage(columnNames, columnIndexes, built, size);
+        }
+    }
+
+    private static class ColumnBuilder {
+        private String[] values = new String[16];
+        // distinct values and their codes, until there are too many to encode
+        private Map<String, Integer> codes = new HashMap<String, Integer>();
+        private List<String> dictionary = new ArrayList<String>();
+
+        private void set(int index, String value) {
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, index + 1));
+            }
+            if (codes != null) {
+                Integer code = codes.get(value);
+                if (code != null) {
+                    // share one instance of each distinct value
+                    value = dictionary.get(code);
+                } else if (codes.size() < MAX_DICTIONARY_SIZE) {
+                    codes.put(value, dictionary.size());
+                    dictionary.add(value);
+                } else {
+                    codes = null;
+                    dictionary = null;
+                }
+            }
+            values[index] = value;
+        }
+
+        private Column build(int size) {
+            // the column may be missing from the last rows (read as null)
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+
+            if (codes != null && !codes.containsKey(null)) {
+                // rows without the column read as null
+                codes.put(null, dictionary.size());
+                dictionary.add(null);
+            }
+
+            //
+            // Only encode columns with few distinct values:
+            //
+
+            if (codes != null && codes.size() <= MAX_DICTIONARY_SIZE
+                    && codes.size() * 2 <= size) {
+                byte[] encoded = new byte[size];
+                for (int i = 0; i < size; i++) {
+                    encoded[i] = (byte) (int) codes.get(values[i]);
+                }
+                return new DictionaryColumn(dictionary.toArray(new String[dictionary.size()]),
+                                            encoded);
+            }
+            return new PlainColumn(values);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETDataExtensionSchemaCache</code> caches the columns of
+ * data extensions (by key) for an <code>ETClient</code>, so that
+ * selecting from or deleting rows of the same data extension
+ * repeatedly doesn't retrieve its columns every time. Entries
+ * expire after <code>schemaCacheTtl</code> milliseconds, and the
+ * least recently used ones are evicted once the cache holds
+ * <code>schemaCacheSize</code> data extensions. Entries are
+ * invalidated when data extensions are created, updated, or
+ * deleted through the SDK.
+ */
+
+public class ETDataExtensionSchemaCache {
+    private static final Logger logger = LoggerFactory.getLogger(ETDataExtensionSchemaCache.class);
+
+    private static final int DEFAULT_TTL = 300000;
+    private static final int DEFAULT_SIZE = 256;
+
+    private final long ttl;
+    private final int size;
+    private final Map<String, Entry> entries;
+    // bumped (under the entries lock) on every invalidation
+    private long generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param configuration     The ETConfiguration object
+    */
+    public ETDataExtensionSchemaCache(ETConfiguration configuration) {
+        this(configuration.getInteger("schemaCacheTtl", DEFAULT_TTL),
+             configuration.getInteger("schemaCacheSize", DEFAULT_SIZE));
+    }
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param ttl       The time in milliseconds entries are kept
+     *                  (0 disables caching)
+     * @param size      The maximum number of entries
+    */
+    public ETDataExtensionSchemaCache(long ttl, final int size) {
+        this.ttl = ttl;
+        this.size = size;
+        // access order makes iteration order LRU first
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ETDataExtensionSchemaCache.this.size;
+            }
+        };
+    }
+
+    /**
+     * @param key       The data extension key
+     * @param loader    The Loader that retrieves the columns on a miss
+     * @return          A copy of the (cached) columns (the columns
+     *                  themselves are copied too, so callers may
+     *                  modify them)
+     * @throws ETSdkException
+     */
+    List<ETDataExtensionColumn> get(String key, Loader loader)
+        throws ETSdkException
+    {
+        String cacheKey = key.toLowerCase();
+        long loadGeneration;
+        synchronized (entries) {
+            if (ttl > 0 && size > 0) {
+                Entry entry = entries.get(cacheKey);
+                if (entry != null) {
+                    if (System.currentTimeMillis() - entry.loaded < ttl) {
+                        hits.incrementAndGet();
+                        return copy(entry.columns);
+                    }
+                    entries.remove(cacheKey);
+                }
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+
+        // retrieve outside the lock so one slow retrieve doesn't block the rest
+        List<ETDataExtensionColumn> columns = loader.load(key);
+
+        if (ttl > 0 && size > 0) {
+            Entry entry = new Entry(copy(columns));
+            synchronized (entries) {
+                //
+                // If the cache was invalidated while the columns were
+                // being retrieved they may already be stale, so don't
+                // write them back:
+                //
+
+                if (generation != loadGeneration) {
+                    logger.debug("not caching columns of data extension " + key
+                            + " (invalidated during load)");
+                    return copy(columns);
+                }
+                entries.put(cacheKey, entry);
+            }
+            logger.debug("cached " + columns.size() + " columns of data extension " + key);
+        }
+
+        return copy(columns);
+    }
+
+    /**
+     * Removes the columns of a data extension from the cache.
+     * @param key       The data extension key
+     */
+    public void invalidate(String key) {
+        if (key == null) {
+            return;
+        }
+        synchronized (entries) {
+            generation++;
+            entries.remove(key.toLowerCase());
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return  The number of data extensions in the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return  The number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return  The number of lookups that retrieved the columns
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return  The fraction of lookups served from the cache
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long lookups = hits + misses.get();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private static List<ETDataExtensionColumn> copy(List<ETDataExtensionColumn> columns) {
+        List<ETDataExtensionColumn> copies =
+                new ArrayList<ETDataExtensionColumn>(columns.size());
+        for (ETDataExtensionColumn column : columns) {
+            ETDataExtensionColumn copy = new ETDataExtensionColumn();
+            copy.setClient(column.getClient());
+            copy.setId(column.getId());
+            copy.setKey(column.getKey());
+            copy.setName(column.getName());
+            copy.setDescription(column.getDescription());
+            if (column.getCreatedDate() != null) {
+                copy.setCreatedDate(new Date(column.getCreatedDate().getTime()));
+            }
+            if (column.getModifiedDate() != null) {
+                copy.setModifiedDate(new Date(column.getModifiedDate().getTime()));
+            }
+            copy.setDataExtension(column.getDataExtension());
+            copy.setType(column.getType());
+            copy.setDefaultValue(column.getDefaultValue());
+            copy.setIsPrimaryKey(column.getIsPrimaryKey());
+            copy.setIsRequired(column.getIsRequired());
+            copy.setLength(column.getLength());
+            copy.setPrecision(column.getPrecision());
+            copy.setScale(column.getScale());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static class Entry {
+        private final List<ETDataExtensionColumn> columns;
+        private final long loaded = System.currentTimeMillis();
+
+        private Entry(List<ETDataExtensionColumn> columns) {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * A <code>Loader</code> retrieves the columns of a data extension.
+     */
+    interface Loader {
+        List<ETDataExtensionColumn> load(String key)
+            throws ETSdkException;
+    }
+}
@@ -49,6 +49,15 @@ import org.slf4j.LoggerFactory;
 public class ETExpression extends ETObject {
     private static final Logger logger = LoggerFactory.getLogger(ETExpression.class);
 
+    //
+    // The parser returns this instance for an unquoted ? value,
+    // so parameters (see ETPreparedQuery) can be told apart from
+    // a quoted '?' by identity. It is deliberately not the
+    // interned "?" literal:
+    //
+
+    static final String PARAMETER = new String("?");
+
     /**
      *  Operator that can be used on ETExpression
      */
@@ -179,6 +188,20 @@ public class ETExpression extends ETObject {
         subexpressions.add(expression);
     }
 
+    /**
+     * @return  A deep copy of the ETExpression object
+     */
+    ETExpression copy() {
+        ETExpression copy = new ETExpression();
+        copy.property = property;
+        copy.operator = operator;
+        copy.values.addAll(values);
+        for (ETExpression subexpression : subexpressions) {
+            copy.subexpressions.add(subexpression.copy());
+        }
+        return copy;
+    }
+
     /** 
      * parse the String to create ETExpression object.
     * @param s       The String to be parsed to create the ETExpression object.
@@ -35,7 +35,6 @@
 package com.exacttarget.fuelsdk;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import com.exacttarget.fuelsdk.annotations.PrettyPrint;
@@ -118,53 +117,15 @@ public class ETFilter extends ETObject {
     }
 
     /** 
-     * parse the String to create ETFilter object.
+     * parse the String to create ETFilter object. The strings are
+     * only parsed the first time they are seen--after that the
+     * filter is created from a cached, compiled plan.
     * @param s       The String to be parsed to create the ETFilter object.
     */
     public static ETFilter parse(String... s)
         throws ETSdkException
     {
-        ETFilter filter = new ETFilter();
-
-        for (String t : s) {
-            try {
-                filter.setExpression(ETExpression.parse(t));
-            } catch (ETSdkException ex) {
-                if (ex.getCause() instanceof ParseException) {
-                    //
-                    // It's not an expression, so it's either
-                    // an order by clause or it's a property:
-                    //
-
-                    if (t.length() >= 8
-                            && t.substring(0, 8).toLowerCase().equals("order by")) {
-                        //
-                        // Order by clause:
-                        //
-
-                        //t = t.toLowerCase();
-                        String tokens[] = t.substring(9).split(" ");
-
-                        if (tokens.length > 1
-                                && tokens[1].toLowerCase().equals("desc")) {
-                            filter.setOrderByAsc(false);
-                        }
-
-                        filter.setOrderBy(Arrays.asList(tokens[0].split(",")));
-                    } else {
-                        //
-                        // Property:
-                        //
-
-                        filter.addProperty(t);
-                    }
-                } else {
-                    throw ex;
-                }
-            }
-        }
-
-        return filter;
+        return ETFilterPlan.compile(s).toFilter();
     }
 
     /**
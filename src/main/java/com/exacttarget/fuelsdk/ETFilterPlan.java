@@ -0,0 +1,183 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An <code>ETFilterPlan</code> is the compiled (parsed) form of the
+ * strings passed to <code>ETFilter.parse</code>. Plans are immutable,
+ * so they are cached (by the strings they were compiled from) and
+ * shared between threads--each call to <code>toFilter</code> returns
+ * a new <code>ETFilter</code> the caller is free to modify.
+ */
+
+final class ETFilterPlan {
+    private static final int CACHE_SIZE = 512;
+    // long strings are usually one-off lists of values
+    private static final int MAX_CACHED_LENGTH = 4096;
+
+    private static final Map<List<String>, ETFilterPlan> cache =
+            new LinkedHashMap<List<String>, ETFilterPlan>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, ETFilterPlan> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final ETExpression expression;
+    private final List<String> orderBy;
+    private final Boolean orderByAsc;
+    private final List<String> properties;
+
+    private ETFilterPlan(ETFilter filter) {
+        this.expression = filter.getExpression().copy();
+        this.orderBy = Collections.unmodifiableList(
+                new ArrayList<String>(filter.getOrderBy()));
+        this.orderByAsc = filter.getOrderByAsc();
+        this.properties = Collections.unmodifiableList(
+                new ArrayList<String>(filter.getProperties()));
+    }
+
+    /**
+     * @param s     The strings to compile
+     * @return      The (possibly cached) ETFilterPlan
+     * @throws ETSdkException
+     */
+    static ETFilterPlan compile(String... s)
+        throws ETSdkException
+    {
+        List<String> key = Arrays.asList(s.clone());
+
+        int length = 0;
+        for (String t : s) {
+            length += t.length();
+        }
+        boolean cacheable = length <= MAX_CACHED_LENGTH;
+
+        if (cacheable) {
+            synchronized (cache) {
+                ETFilterPlan plan = cache.get(key);
+                if (plan != null) {
+                    return plan;
+                }
+            }
+        }
+
+        // parse outside the lock (two threads may parse the same strings once)
+        ETFilterPlan plan = new ETFilterPlan(parse(s));
+
+        if (cacheable) {
+            synchronized (cache) {
+                cache.put(key, plan);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * @return  A new ETFilter equivalent to the plan
+     */
+    ETFilter toFilter() {
+        ETFilter filter = new ETFilter();
+        filter.setExpression(expression.copy());
+        filter.setOrderBy(new ArrayList<String>(orderBy));
+        filter.setOrderByAsc(orderByAsc);
+        filter.setProperties(new ArrayList<String>(properties));
+        return filter;
+    }
+
+    /**
+     * @return  The number of plans in the cache
+     */
+    static int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static ETFilter parse(String... s)
+        throws ETSdkException
+    {
+        ETFilter filter = new ETFilter();
+
+        for (String t : s) {
+            try {
+                filter.setExpression(ETExpression.parse(t));
+            } catch (ETSdkException ex) {
+                if (ex.getCause() instanceof ParseException) {
+                    //
+                    // It's not an expression, so it's either
+                    // an order by clause or it's a property:
+                    //
+
+                    if (t.length() >= 8
+                            && t.substring(0, 8).toLowerCase().equals("order by")) {
+                        //
+                        // Order by clause:
+                        //
+
+                        String tokens[] = t.substring(9).split(" ");
+
+                        if (tokens.length > 1
+                                && tokens[1].toLowerCase().equals("desc")) {
+                            filter.setOrderByAsc(false);
+                        }
+
+                        filter.setOrderBy(Arrays.asList(tokens[0].split(",")));
+                    } else {
+                        //
+                        // Property:
+                        //
+
+                        filter.addProperty(t);
+                    }
+                } else {
+                    throw ex;
+                }
+            }
+        }
+
+        return filter;
+    }
+}
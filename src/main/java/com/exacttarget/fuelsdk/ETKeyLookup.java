@@ -0,0 +1,363 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.exacttarget.fuelsdk.annotations.RestObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETKeyLookup</code> retrieves objects by the values of
+ * one property (e.g., subscribers by key) by splitting the values
+ * into <code>IN</code> filters of at most <code>lookupBatchSize</code>
+ * values and <code>lookupBatchBytes</code> bytes and retrieving them
+ * concurrently, with at most <code>lookupConcurrency</code>
+ * retrieves in flight. REST endpoints aren't guaranteed to honour
+ * <code>$filter</code>, so REST objects can only be looked up by
+ * their primary key, with one <code>GET</code> per key.
+ */
+
+class ETKeyLookup<T extends ETApiObject> {
+    private static final Logger logger = LoggerFactory.getLogger(ETKeyLookup.class);
+
+    private static final int DEFAULT_BATCH_SIZE = ETSoapObject.PAGE_SIZE;
+    private static final int DEFAULT_BATCH_BYTES = 65536;
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    private final ETClient client;
+    private final ExecutorService executor;
+    private final Class<T> type;
+    private final String property;
+    private final boolean rest;
+    private final int batchSize;
+    private final int batchBytes;
+    private final int concurrency;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param client        The ETClient object
+     * @param executor      The ExecutorService the batches are retrieved on
+     * @param configuration The ETConfiguration object
+     * @param type          The class type to retrieve
+     * @param property      The property the keys are values of
+     * @throws ETSdkException
+    */
+    ETKeyLookup(ETClient client,
+                ExecutorService executor,
+                ETConfiguration configuration,
+                Class<T> type,
+                String property)
+        throws ETSdkException
+    {
+        this.client = client;
+        this.executor = executor;
+        this.type = type;
+        this.property = property;
+        this.rest = ETRestObject.class.isAssignableFrom(type);
+
+        if (rest) {
+            RestObject annotation = type.getAnnotation(RestObject.class);
+            if (annotation == null || !property.equals(annotation.primaryKey())) {
+                throw new ETSdkException(type.getSimpleName()
+                        + " objects can only be looked up by their primary key");
+            }
+            // one GET per key
+            this.batchSize = 1;
+            this.batchBytes = Integer.MAX_VALUE;
+        } else {
+            this.batchSize = Math.max(configuration.getInteger("lookupBatchSize",
+                    DEFAULT_BATCH_SIZE), 1);
+            this.batchBytes = Math.max(configuration.getInteger("lookupBatchBytes",
+                    DEFAULT_BATCH_BYTES), 1);
+        }
+        this.concurrency = Math.max(configuration.getInteger("lookupConcurrency",
+                DEFAULT_CONCURRENCY), 1);
+    }
+
+    /**
+     * @param keys      The keys to look up (duplicates and nulls are ignored)
+     * @return          The objects found, by key (keys that
+     *                  weren't found are left out)
+     * @throws ETSdkException
+     */
+    Map<String, T> execute(Collection<String> keys)
+        throws ETSdkException
+    {
+        long start = System.currentTimeMillis();
+
+        //
+        // Results are matched to keys ignoring case, since
+        // the server may not preserve the case of the key
+        // (keys that only differ in case all get the object):
+        //
+
+        Map<String, List<String>> requested = new HashMap<String, List<String>>();
+        LinkedHashSet<String> uniqueKeys = new LinkedHashSet<String>();
+        for (String key : keys) {
+            if (key != null && uniqueKeys.add(key)) {
+                String folded = key.toLowerCase(Locale.ROOT);
+                List<String> originalKeys = requested.get(folded);
+                if (originalKeys == null) {
+                    originalKeys = new ArrayList<String>(1);
+                    requested.put(folded, originalKeys);
+                }
+                originalKeys.add(key);
+            }
+        }
+
+        List<List<String>> batches = split(uniqueKeys, batchSize, batchBytes);
+
+        Map<String, T> objects = new LinkedHashMap<String, T>();
+
+        CompletionService<List<T>> completionService =
+                new ExecutorCompletionService<List<T>>(executor);
+        Map<Future<List<T>>, Integer> outstanding = new HashMap<Future<List<T>>, Integer>();
+        int nextBatch = 0;
+
+        try {
+            while (nextBatch < batches.size() || !outstanding.isEmpty()) {
+                while (nextBatch < batches.size() && outstanding.size() < concurrency) {
+                    final List<String> batch = batches.get(nextBatch);
+                    outstanding.put(completionService.submit(new Callable<List<T>>() {
+                        @Override
+                        public List<T> call()
+                            throws ETSdkException
+                        {
+                            return retrieve(batch);
+                        }
+                    }), nextBatch++);
+                }
+
+                Future<List<T>> future = completionService.take();
+                int batch = outstanding.remove(future);
+                List<T> batchObjects = null;
+                try {
+                    batchObjects = future.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof ETSdkException) {
+                        throw (ETSdkException) ex.getCause();
+                    }
+                    throw new ETSdkException("error retrieving batch " + batch
+                            + " of " + type.getSimpleName() + " keys", ex.getCause());
+                }
+
+                for (T object : batchObjects) {
+                    String value = getValue(object);
+                    if (value == null) {
+                        continue;
+                    }
+                    // skip objects that weren't asked for
+                    List<String> originalKeys = requested.get(value.toLowerCase(Locale.ROOT));
+                    if (originalKeys == null) {
+                        continue;
+                    }
+                    for (String key : originalKeys) {
+                        // an exact match wins over one ignoring case
+                        T found = objects.get(key);
+                        if (found == null
+                                || (key.equals(value) && !key.equals(getValue(found)))) {
+                            objects.put(key, object);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ETSdkException("interrupted retrieving " + type.getSimpleName() + " keys", ex);
+        } finally {
+            for (Future<List<T>> future : outstanding.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        logger.debug("looked up " + uniqueKeys.size() + " " + type.getSimpleName()
+                + " keys in " + batches.size() + " batches in "
+                + (System.currentTimeMillis() - start) + " ms ("
+                + objects.size() + " found)");
+
+        return objects;
+    }
+
+    private List<T> retrieve(List<String> keys)
+        throws ETSdkException
+    {
+        ETExpression expression = new ETExpression();
+        expression.setProperty(property);
+        if (keys.size() == 1) {
+            expression.setOperator(ETExpression.Operator.EQUALS);
+        } else {
+            expression.setOperator(ETExpression.Operator.IN);
+        }
+        expression.getValues().addAll(keys);
+        ETFilter filter = new ETFilter();
+        filter.setExpression(expression);
+
+        ETPagingIterator.PageSource<T> pageSource = createPageSource(filter);
+
+        List<T> objects = new ArrayList<T>();
+        ETResponse<T> response = null;
+        do {
+            response = pageSource.retrievePage(response);
+            if (response.getStatus() == ETResult.Status.ERROR) {
+                throw new ETSdkException("error retrieving " + type.getSimpleName()
+                        + " keys (" + response.getResponseCode()
+                        + " " + response.getResponseMessage() + ")");
+            }
+            objects.addAll(response.getObjects());
+        } while (response.hasMoreResults() != null && response.hasMoreResults());
+        return objects;
+    }
+
+    /**
+     * @param filter    The filter on the keys of one batch
+     * @return          The PageSource that retrieves the batch
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    ETPagingIterator.PageSource<T> createPageSource(final ETFilter filter) {
+        if (!rest) {
+            return client.createPageSource(type, null, filter);
+        }
+
+        //
+        // An EQUALS filter on the primary key is sent as a GET
+        // of path/key (without $page, which would precede it):
+        //
+
+        return new ETPagingIterator.PageSource<T>() {
+            @Override
+            public ETResponse<T> retrievePage(ETResponse<T> previous)
+                throws ETSdkException
+            {
+                ETResponse<T> response =
+                        ETRestObject.retrieve(client, (Class) type, null, null, filter);
+                if ("404".equals(response.getResponseCode())) {
+                    // the key wasn't found
+                    return new ETResponse<T>();
+                }
+                return response;
+            }
+        };
+    }
+
+    private String getValue(T object)
+        throws ETSdkException
+    {
+        Field field = object.getField(property);
+        if (field == null) {
+            field = ETObject.getField(object.getClass(), property);
+        }
+        try {
+            field.setAccessible(true);
+            Object value = field.get(object);
+            return value != null ? value.toString() : null;
+        } catch (IllegalAccessException ex) {
+            throw new ETSdkException("could not read property \""
+                    + property + "\" of object " + object, ex);
+        }
+    }
+
+    /**
+     * Splits keys into batches of at most batchSize keys and
+     * (unless it holds a single key) batchBytes bytes of SOAP
+     * envelope.
+     * @param keys          The keys
+     * @param batchSize     The maximum number of keys per batch
+     * @param batchBytes    The maximum size of the keys of a batch
+     * @return              The batches
+     */
+    static List<List<String>> split(Collection<String> keys,
+                                    int batchSize,
+                                    int batchBytes)
+    {
+        List<List<String>> batches = new ArrayList<List<String>>();
+        List<String> batch = new ArrayList<String>();
+        int bytes = 0;
+        for (String key : keys) {
+            int size = envelopeSize(key);
+            if (!batch.isEmpty()
+                    && (batch.size() >= batchSize || bytes + size > batchBytes)) {
+                batches.add(batch);
+                batch = new ArrayList<String>();
+                bytes = 0;
+            }
+            batch.add(key);
+            bytes += size;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static int envelopeSize(String key) {
+        // <Value></Value>
+        int size = key.getBytes(StandardCharsets.UTF_8).length + 15;
+        for (int i = 0; i < key.length(); i++) {
+            switch (key.charAt(i)) {
+              case '&':
+                size += 4;
+                break;
+              case '<':
+              case '>':
+                size += 3;
+                break;
+              case '"':
+              case '\'':
+                size += 5;
+                break;
+              default:
+                break;
+            }
+        }
+        return size;
+    }
+}
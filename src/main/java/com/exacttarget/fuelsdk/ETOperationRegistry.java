@@ -0,0 +1,241 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An <code>ETOperationRegistry</code> finds the static retrieve,
+ * create, update, and delete methods of an object type (declared
+ * on the type or inherited from a superclass) the first time the
+ * type is used and keeps them as method handles, so dispatching a
+ * call through <code>ETClient</code> takes no reflective lookups.
+ */
+
+final class ETOperationRegistry {
+    private static final MethodType RETRIEVE_TYPE = MethodType.methodType(ETResponse.class,
+            ETClient.class,     // client
+            Class.class,        // type
+            Integer.class,      // page
+            Integer.class,      // pageSize
+            String.class,       // continueRequest
+            ETFilter.class);    // filter
+    private static final MethodType RETRIEVE_WITHOUT_CONTINUE_TYPE = RETRIEVE_TYPE.dropParameterTypes(4, 5);
+    private static final MethodType CREATE_UPDATE_DELETE_TYPE = MethodType.methodType(ETResponse.class,
+            ETClient.class,     // client
+            List.class);        // objects
+
+    private static final ClassValue<Operations> operations = new ClassValue<Operations>() {
+        @Override
+        protected Operations computeValue(Class<?> type) {
+            return new Operations(type);
+        }
+    };
+
+    private ETOperationRegistry() {}
+
+    /**
+     * @param   type    The object type
+     * @return  The operations of the type
+     */
+    static Operations get(Class<?> type) {
+        return operations.get(type);
+    }
+
+    /**
+     * The <code>Operations</code> of an object type.
+     */
+    static final class Operations {
+        private final Class<?> type;
+        private final MethodHandle retrieve;
+        private final boolean retrieveTakesContinueRequest;
+        private final MethodHandle create;
+        private final MethodHandle update;
+        private final MethodHandle delete;
+
+        private Operations(Class<?> type) {
+            this.type = type;
+            MethodHandle handle = find(type, "retrieve", RETRIEVE_TYPE);
+            if (handle != null) {
+                retrieveTakesContinueRequest = true;
+            } else {
+                //
+                // REST objects have no continue requests:
+                //
+
+                handle = find(type, "retrieve", RETRIEVE_WITHOUT_CONTINUE_TYPE);
+                if (handle != null) {
+                    handle = MethodHandles.dropArguments(handle, 4, String.class);
+                }
+                retrieveTakesContinueRequest = false;
+            }
+            retrieve = handle;
+            create = find(type, "create", CREATE_UPDATE_DELETE_TYPE);
+            update = find(type, "update", CREATE_UPDATE_DELETE_TYPE);
+            delete = find(type, "delete", CREATE_UPDATE_DELETE_TYPE);
+        }
+
+        /**
+         * @param client            The ETClient object
+         * @param page              The page number
+         * @param pageSize          The page size
+         * @param continueRequest   The continue request
+         * @param filter            The ETFilter object
+         * @return                  The ETResponse
+         * @throws ETSdkException
+         */
+        @SuppressWarnings("unchecked")
+        <T extends ETApiObject> ETResponse<T> retrieve(ETClient client,
+                                   Integer page,
+                                   Integer pageSize,
+                                   String continueRequest,
+                                   ETFilter filter)
+            throws ETSdkException
+        {
+            if (retrieve == null) {
+                throw new ETSdkException("could not find retrieve method for type " + type);
+            }
+            if (continueRequest != null && !retrieveTakesContinueRequest) {
+                throw new ETSdkException("continue request not supported on type " + type);
+            }
+            try {
+                return (ETResponse<T>) (ETResponse<?>) retrieve.invokeExact(client,
+                                                                            (Class<?>) type,
+                                                                            page,
+                                                                            pageSize,
+                                                                            continueRequest,
+                                                                            filter);
+            } catch (ETSdkException ex) {
+                throw ex;
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new ETSdkException("error invoking retrieve method for type " + type, ex);
+            }
+        }
+
+        /**
+         * @param client    The ETClient object
+         * @param objects   The objects to create
+         * @return          The ETResponse
+         * @throws ETSdkException
+         */
+        <T extends ETApiObject> ETResponse<T> create(ETClient client, List<T> objects)
+            throws ETSdkException
+        {
+            return invoke(create, "create", client, objects);
+        }
+
+        /**
+         * @param client    The ETClient object
+         * @param objects   The objects to update
+         * @return          The ETResponse
+         * @throws ETSdkException
+         */
+        <T extends ETApiObject> ETResponse<T> update(ETClient client, List<T> objects)
+            throws ETSdkException
+        {
+            return invoke(update, "update", client, objects);
+        }
+
+        /**
+         * @param client    The ETClient object
+         * @param objects   The objects to delete
+         * @return          The ETResponse
+         * @throws ETSdkException
+         */
+        <T extends ETApiObject> ETResponse<T> delete(ETClient client, List<T> objects)
+            throws ETSdkException
+        {
+            return invoke(delete, "delete", client, objects);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends ETApiObject> ETResponse<T> invoke(MethodHandle handle,
+                                         String name,
+                                         ETClient client,
+                                         List<T> objects)
+            throws ETSdkException
+        {
+            if (handle == null) {
+                throw new ETSdkException("could not find " + name + " method for type " + type);
+            }
+            try {
+                return (ETResponse<T>) (ETResponse<?>) handle.invokeExact(client, (List<?>) objects);
+            } catch (ETSdkException ex) {
+                throw ex;
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new ETSdkException("error invoking " + name + " method for type " + type, ex);
+            }
+        }
+    }
+
+    /**
+     * @return  A handle (of the given type) for the static method
+     *          declared closest to type, or null if there is none
+     */
+    private static MethodHandle find(Class<?> type, String name, MethodType methodType) {
+        Class<?>[] parameterTypes = methodType.parameterArray();
+        for (Class<?> t = type; t != null; t = t.getSuperclass()) {
+            for (Method method : t.getDeclaredMethods()) {
+                if (!method.getName().equals(name)
+                        || !Modifier.isStatic(method.getModifiers())
+                        || !Arrays.equals(method.getParameterTypes(), parameterTypes))
+                {
+                    continue;
+                }
+                try {
+                    method.setAccessible(true);
+                    return MethodHandles.lookup().unreflect(method).asType(methodType);
+                } catch (IllegalAccessException ex) {
+                    throw new IllegalStateException("could not access " + method, ex);
+                }
+            }
+        }
+        return null;
+    }
+}
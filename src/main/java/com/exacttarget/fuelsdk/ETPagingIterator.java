@@ -0,0 +1,189 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETPagingIterator</code> iterates over all objects
+ * matching a retrieve, one page at a time. Pages are requested
+ * lazily, and while the caller works through one page the next
+ * one is retrieved in the background, so at most two pages are
+ * held in memory at any time.
+ */
+
+public class ETPagingIterator<T extends ETApiObject> implements Iterator<T>, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ETPagingIterator.class);
+
+    private final PageSource<T> source;
+    private final ExecutorService executor;
+
+    private Iterator<T> current = null;
+    private Future<ETResponse<T>> next = null;
+    private boolean closed = false;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param source    The PageSource that retrieves the pages
+     * @param executor  The ExecutorService used to prefetch pages
+    */
+    public ETPagingIterator(PageSource<T> source, ExecutorService executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (current == null) {
+            // first page is retrieved on the calling thread
+            try {
+                accept(source.retrievePage(null));
+            } catch (ETSdkException ex) {
+                close();
+                throw new ETSdkRuntimeException(ex);
+            }
+        }
+        while (!current.hasNext()) {
+            if (next == null) {
+                close();
+                return false;
+            }
+            accept(await(next));
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Stops retrieving pages (a prefetch in progress is
+     * cancelled).
+     */
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.<T>emptyList().iterator();
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+
+    private void accept(final ETResponse<T> page) {
+        if (page.getStatus() == ETResult.Status.ERROR) {
+            close();
+            throw new ETSdkRuntimeException(new ETSdkException("error retrieving page ("
+                    + page.getResponseCode() + " "
+                    + page.getResponseMessage() + ")"));
+        }
+        current = page.getObjects().iterator();
+        next = null;
+        if (page.hasMoreResults() != null && page.hasMoreResults()) {
+            //
+            // Start retrieving the next page while the caller
+            // works through this one:
+            //
+
+            next = executor.submit(new Callable<ETResponse<T>>() {
+                @Override
+                public ETResponse<T> call()
+                    throws ETSdkException
+                {
+                    return source.retrievePage(page);
+                }
+            });
+        }
+    }
+
+    private ETResponse<T> await(Future<ETResponse<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new ETSdkRuntimeException(new ETSdkException("interrupted retrieving page", ex));
+        } catch (CancellationException ex) {
+            close();
+            throw new ETSdkRuntimeException(new ETSdkException("page retrieval cancelled", ex));
+        } catch (ExecutionException ex) {
+            close();
+            Throwable cause = ex.getCause();
+            logger.debug("error retrieving page", cause);
+            if (cause instanceof ETSdkException) {
+                throw new ETSdkRuntimeException((ETSdkException) cause);
+            }
+            throw new ETSdkRuntimeException(new ETSdkException("error retrieving page", cause));
+        }
+    }
+
+    /**
+     * A <code>PageSource</code> retrieves the pages an
+     * <code>ETPagingIterator</code> iterates over.
+     */
+    public interface PageSource<T extends ETApiObject> {
+        /**
+         * @param previous  The previous page, or null to retrieve the first page
+         * @return          The page following <code>previous</code>
+         * @throws ETSdkException
+         */
+        public ETResponse<T> retrievePage(ETResponse<T> previous)
+            throws ETSdkException;
+    }
+}
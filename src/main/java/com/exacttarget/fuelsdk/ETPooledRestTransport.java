@@ -0,0 +1,560 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETPooledRestTransport</code> sends requests over a
+ * bounded pool of persistent (keep-alive) connections. Idle
+ * connections are evicted in the background until the transport
+ * is closed (by <code>ETClient.close</code>).
+ */
+
+public class ETPooledRestTransport implements ETRestTransport {
+    private static final Logger logger = LoggerFactory.getLogger(ETPooledRestTransport.class);
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int DEFAULT_IDLE_TIMEOUT = 30000;
+
+    private static ScheduledExecutorService evictor = null;
+
+    private InstrumentedConnectionManager connectionManager = null;
+    private RequestConfig requestConfig = null;
+    private CloseableHttpClient httpClient = null;
+    private ScheduledFuture<?> eviction = null;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param configuration     The ETConfiguration object
+    */
+    public ETPooledRestTransport(ETConfiguration configuration) {
+        int maxConnections = configuration.getInteger("restMaxConnections",
+                DEFAULT_MAX_CONNECTIONS);
+        int maxConnectionsPerRoute = configuration.getInteger("restMaxConnectionsPerRoute",
+                DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        final int idleTimeout = configuration.getInteger("restIdleTimeout",
+                DEFAULT_IDLE_TIMEOUT);
+
+        //
+        // Honour the same system properties HttpURLConnection does:
+        // javax.net.ssl.* for the SSL context here, and the
+        // http(s).proxyHost/proxyPort/nonProxyHosts proxy settings
+        // through useSystemProperties() below:
+        //
+
+        connectionManager = new InstrumentedConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                        .build());
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom();
+        Integer connectTimeout = configuration.getInteger("restConnectTimeout", null);
+        if (connectTimeout != null) {
+            requestConfig.setConnectTimeout(connectTimeout);
+        }
+        Integer readTimeout = configuration.getInteger("restReadTimeout", null);
+        if (readTimeout != null) {
+            requestConfig.setSocketTimeout(readTimeout);
+        }
+        Integer leaseTimeout = configuration.getInteger("restLeaseTimeout", null);
+        if (leaseTimeout != null) {
+            requestConfig.setConnectionRequestTimeout(leaseTimeout);
+        }
+
+        this.requestConfig = requestConfig.build();
+        httpClient = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(this.requestConfig)
+                .build();
+
+        if (idleTimeout > 0) {
+            eviction = getEvictor().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeout,
+                                                           TimeUnit.MILLISECONDS);
+                }
+            }, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        logger.debug("initialized REST connection pool (max "
+                + maxConnections + ", max per route "
+                + maxConnectionsPerRoute + ", idle timeout "
+                + idleTimeout + " ms)");
+    }
+
+    @Override
+    public Exchange execute(ETRestConnection.Method method,
+                            URL url,
+                            Map<String, String> headers,
+                            Body body)
+        throws ETSdkException
+    {
+        HttpRequestBase request = null;
+        if (body != null) {
+            EntityRequest entityRequest = new EntityRequest(method);
+            entityRequest.setEntity(new BodyEntity(body));
+            request = entityRequest;
+        } else {
+            request = new Request(method);
+        }
+        try {
+            request.setURI(url.toURI());
+        } catch (URISyntaxException ex) {
+            throw new ETSdkException(url + ": bad URL", ex);
+        }
+
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.setHeader(header.getKey(), header.getValue());
+        }
+
+        //
+        // If this is an asynchronous call, bound the timeouts by
+        // the time remaining and abort the request if the call
+        // is cancelled:
+        //
+
+        ETCallContext context = ETCallContext.current();
+        Runnable abort = null;
+        if (context != null) {
+            Integer remainingTime = context.getRemainingTime();
+            if (remainingTime != null) {
+                request.setConfig(RequestConfig.copy(requestConfig)
+                        .setConnectTimeout(min(requestConfig.getConnectTimeout(), remainingTime))
+                        .setSocketTimeout(min(requestConfig.getSocketTimeout(), remainingTime))
+                        .setConnectionRequestTimeout(min(requestConfig.getConnectionRequestTimeout(), remainingTime))
+                        .build());
+            }
+            final HttpRequestBase abortableRequest = request;
+            abort = new Runnable() {
+                @Override
+                public void run() {
+                    abortableRequest.abort();
+                }
+            };
+            if (!context.addCancelCallback(abort)) {
+                throw new ETSdkException("call cancelled");
+            }
+        }
+
+        CloseableHttpResponse response = null;
+        try {
+            response = httpClient.execute(request);
+        } catch (ConnectionPoolTimeoutException ex) {
+            removeCancelCallback(context, abort);
+            throw new ETSdkException("timed out waiting for a connection to "
+                    + url.getHost(), ex);
+        } catch (IOException ex) {
+            removeCancelCallback(context, abort);
+            throw new ETSdkException("error requesting " + url, ex);
+        }
+
+        return new PooledExchange(request, response, context, abort);
+    }
+
+    private static int min(int timeout, int remainingTime) {
+        // a timeout of 0 (or less) means no timeout
+        return timeout > 0 ? Math.min(timeout, remainingTime) : remainingTime;
+    }
+
+    private static void removeCancelCallback(ETCallContext context, Runnable callback) {
+        if (context != null) {
+            context.removeCancelCallback(callback);
+        }
+    }
+
+    /**
+     * @return  A snapshot of the connection pool metrics
+     */
+    public Metrics getMetrics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return new Metrics(stats.getLeased(),
+                           stats.getAvailable(),
+                           stats.getPending(),
+                           stats.getMax(),
+                           connectionManager.leases.get(),
+                           connectionManager.reusedLeases.get(),
+                           connectionManager.leaseWaitNanos.get());
+    }
+
+    @Override
+    public void close() {
+        if (eviction != null) {
+            eviction.cancel(false);
+        }
+        try {
+            httpClient.close();
+        } catch (IOException ex) {
+            logger.warn("error closing REST connection pool", ex);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getEvictor() {
+        if (evictor == null) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fuelsdk-rest-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // cancelled evictions mustn't keep their (closed) pools reachable
+            executor.setRemoveOnCancelPolicy(true);
+            evictor = executor;
+        }
+        return evictor;
+    }
+
+    /**
+     * A <code>Metrics</code> object is a point-in-time snapshot
+     * of the REST connection pool.
+     */
+    public static class Metrics {
+        private final int leased;
+        private final int available;
+        private final int pending;
+        private final int max;
+        private final long leases;
+        private final long reusedLeases;
+        private final long leaseWaitNanos;
+
+        private Metrics(int leased,
+                        int available,
+                        int pending,
+                        int max,
+                        long leases,
+                        long reusedLeases,
+                        long leaseWaitNanos)
+        {
+            this.leased = leased;
+            this.available = available;
+            this.pending = pending;
+            this.max = max;
+            this.leases = leases;
+            this.reusedLeases = reusedLeases;
+            this.leaseWaitNanos = leaseWaitNanos;
+        }
+
+        /**
+         * @return  The number of open connections (leased plus idle)
+         */
+        public int getPoolSize() {
+            return leased + available;
+        }
+
+        /**
+         * @return  The number of connections currently in use
+         */
+        public int getLeased() {
+            return leased;
+        }
+
+        /**
+         * @return  The number of idle connections
+         */
+        public int getAvailable() {
+            return available;
+        }
+
+        /**
+         * @return  The number of requests waiting for a connection
+         */
+        public int getPending() {
+            return pending;
+        }
+
+        /**
+         * @return  The maximum number of connections
+         */
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * @return  The total number of connection leases
+         */
+        public long getLeases() {
+            return leases;
+        }
+
+        /**
+         * @return  The number of leases served by an already open connection
+         */
+        public long getReusedLeases() {
+            return reusedLeases;
+        }
+
+        /**
+         * @return  The fraction of leases served by an already open connection
+         */
+        public double getReuseRate() {
+            return leases == 0 ? 0.0 : (double) reusedLeases / leases;
+        }
+
+        /**
+         * @return  The total time in milliseconds spent waiting for a connection
+         */
+        public long getTotalLeaseWaitTime() {
+            return TimeUnit.NANOSECONDS.toMillis(leaseWaitNanos);
+        }
+
+        /**
+         * @return  The average time in milliseconds spent waiting for a connection
+         */
+        public double getAverageLeaseWaitTime() {
+            return leases == 0 ? 0.0 : (double) leaseWaitNanos / leases / 1000000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "poolSize=" + getPoolSize()
+                    + ", leased=" + leased
+                    + ", available=" + available
+                    + ", pending=" + pending
+                    + ", max=" + max
+                    + ", leases=" + leases
+                    + ", reuseRate=" + getReuseRate()
+                    + ", averageLeaseWaitTime=" + getAverageLeaseWaitTime();
+        }
+    }
+
+    private static class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+        private final AtomicLong leases = new AtomicLong();
+        private final AtomicLong reusedLeases = new AtomicLong();
+        private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+        private InstrumentedConnectionManager(Registry<ConnectionSocketFactory> registry) {
+            super(registry);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ConnectionRequest connectionRequest = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException
+                {
+                    long start = System.nanoTime();
+                    HttpClientConnection connection = connectionRequest.get(timeout, unit);
+                    leaseWaitNanos.addAndGet(System.nanoTime() - start);
+                    leases.incrementAndGet();
+                    // new connections are not opened until after they're leased
+                    if (connection.isOpen()) {
+                        reusedLeases.incrementAndGet();
+                    }
+                    return connection;
+                }
+
+                @Override
+                public boolean cancel() {
+                    return connectionRequest.cancel();
+                }
+            };
+        }
+    }
+
+    private static class Request extends HttpRequestBase {
+        private final String method;
+
+        private Request(ETRestConnection.Method method) {
+            this.method = method.toString();
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    private static class EntityRequest extends HttpEntityEnclosingRequestBase {
+        private final String method;
+
+        private EntityRequest(ETRestConnection.Method method) {
+            this.method = method.toString();
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * Writes the body straight to the connection (using chunked
+     * transfer encoding if its length isn't known in advance).
+     */
+    private static class BodyEntity extends AbstractHttpEntity {
+        private final Body body;
+
+        private BodyEntity(Body body) {
+            this.body = body;
+            setChunked(body.getContentLength() < 0);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.getContentLength();
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("the body can only be written");
+        }
+
+        @Override
+        public void writeTo(OutputStream out)
+            throws IOException
+        {
+            body.writeTo(out);
+            out.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    private static class PooledExchange implements Exchange {
+        private HttpRequestBase request = null;
+        private CloseableHttpResponse response = null;
+        private ETCallContext context = null;
+        private Runnable abort = null;
+
+        private PooledExchange(HttpRequestBase request,
+                               CloseableHttpResponse response,
+                               ETCallContext context,
+                               Runnable abort)
+        {
+            this.request = request;
+            this.response = response;
+            this.context = context;
+            this.abort = abort;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getResponseMessage() {
+            return response.getStatusLine().getReasonPhrase();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+
+        @Override
+        public InputStream getInputStream()
+            throws IOException
+        {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            return entity.getContent();
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            try {
+                // consuming what's left of the body keeps the connection reusable
+                EntityUtils.consume(response.getEntity());
+            } catch (IOException ex) {
+                request.abort();
+            } finally {
+                removeCancelCallback(context, abort);
+                response.close();
+            }
+        }
+    }
+}
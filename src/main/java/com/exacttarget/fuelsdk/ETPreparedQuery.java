@@ -0,0 +1,246 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.exacttarget.fuelsdk.internal.ComplexFilterPart;
+import com.exacttarget.fuelsdk.internal.FilterPart;
+import com.exacttarget.fuelsdk.internal.RetrieveOptions;
+import com.exacttarget.fuelsdk.internal.RetrieveRequest;
+import com.exacttarget.fuelsdk.internal.RetrieveRequestMsg;
+import com.exacttarget.fuelsdk.internal.SimpleFilterPart;
+
+/**
+ * An <code>ETPreparedQuery</code> is a SOAP retrieve whose filter
+ * has been parsed, and whose object type, property names, and
+ * filter tree have been resolved to their internal counterparts,
+ * ahead of time (like a JDBC <code>PreparedStatement</code>).
+ * Every unquoted <code>?</code> value in the filter is a parameter
+ * (a quoted <code>'?'</code> is the literal string); each execution
+ * only binds values to the parameters,
+ * in the order they appear in the filter (e.g., a query prepared
+ * with <code>client.prepare(ETSubscriber.class, "emailAddress = ?")</code>
+ * is executed with <code>query.execute("foo@example.com")</code>).
+ * Prepared queries are immutable and may be executed from
+ * any number of threads at the same time.
+ */
+
+public class ETPreparedQuery<T extends ETSoapObject> {
+    private final ETClient client;
+    private final Class<T> type;
+    private final Integer pageSize;
+    private final String objectType;
+    private final List<String> properties;
+    private final FilterPart filterPart;
+    private final int parameterCount;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param client        The ETClient object
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (or null for the default)
+     * @param filter        The filter, which may contain parameters
+     * @throws ETSdkException
+    */
+    ETPreparedQuery(ETClient client,
+                    Class<T> type,
+                    Integer pageSize,
+                    String... filter)
+        throws ETSdkException
+    {
+        this.client = client;
+        this.type = type;
+        this.pageSize = pageSize;
+
+        ETFilter parsedFilter = ETFilter.parse(filter);
+        if (parsedFilter.getOrderBy().size() != 0) {
+            throw new ETSdkException("order by argument not supported on this object type");
+        }
+
+        ETSoapObject.TypeMetadata metadata = ETSoapObject.getTypeMetadata(type);
+
+        objectType = metadata.getInternalType().getSimpleName();
+
+        if (parsedFilter.getProperties().size() > 0) {
+            List<String> internalProperties = new ArrayList<String>();
+            for (String property : parsedFilter.getProperties()) {
+                internalProperties.add(metadata.getInternalProperty(property));
+            }
+            properties = Collections.unmodifiableList(internalProperties);
+        } else {
+            properties = metadata.getRetrievableProperties();
+        }
+
+        ETExpression expression = parsedFilter.getExpression();
+        if (expression.getOperator() != null) {
+            filterPart = ETSoapObject.toFilterPart(
+                    ETSoapObject.toInternalExpression(expression, metadata));
+        } else {
+            filterPart = null;
+        }
+        parameterCount = countParameters(filterPart);
+    }
+
+    /**
+     * @return  The type of the objects retrieved
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return  The number of parameters in the filter
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Executes the query.
+     * @param values    The values of the parameters
+     * @return          The ETResponse object of type T
+     * @throws ETSdkException
+     */
+    public ETResponse<T> execute(String... values)
+        throws ETSdkException
+    {
+        RetrieveRequestMsg retrieveRequestMsg = createRetrieveRequest(values);
+        return ETSoapObject.toResponse(client,
+                ETSoapObject.retrieveInternal(client, retrieveRequestMsg),
+                type);
+    }
+
+    /**
+     * Executes the query, handing each object to the callback as
+     * soon as it has been read off the response (see
+     * <code>ETSoapObject.retrieve</code>).
+     * @param callback  The ObjectCallback to receive the objects
+     * @param values    The values of the parameters
+     * @return          The ETResponse object of type T (without results)
+     * @throws ETSdkException
+     */
+    public ETResponse<T> execute(ETSoapObject.ObjectCallback<? super T> callback,
+                                 String... values)
+        throws ETSdkException
+    {
+        RetrieveRequestMsg retrieveRequestMsg = createRetrieveRequest(values);
+        return ETSoapObject.retrieve(client, retrieveRequestMsg, type, callback);
+    }
+
+    private RetrieveRequestMsg createRetrieveRequest(String... values)
+        throws ETSdkException
+    {
+        if (values.length != parameterCount) {
+            throw new ETSdkException("expected " + parameterCount
+                    + " parameter values but got " + values.length);
+        }
+
+        RetrieveRequest retrieveRequest = new RetrieveRequest();
+        retrieveRequest.setObjectType(objectType);
+        retrieveRequest.getProperties().addAll(properties);
+        if (filterPart != null) {
+            retrieveRequest.setFilter(bind(filterPart, values, new int[1]));
+        }
+        if (pageSize != null) {
+            RetrieveOptions options = new RetrieveOptions();
+            options.setBatchSize(pageSize);
+            retrieveRequest.setOptions(options);
+        }
+
+        RetrieveRequestMsg retrieveRequestMsg = new RetrieveRequestMsg();
+        retrieveRequestMsg.setRetrieveRequest(retrieveRequest);
+        return retrieveRequestMsg;
+    }
+
+    //
+    // The generated FilterPart classes are mutable, so each
+    // execution gets its own copy of the (resolved) template:
+    //
+
+    static FilterPart bind(FilterPart template,
+                           String[] values,
+                           int[] next)
+    {
+        if (template == null) {
+            return null;
+        }
+        if (template instanceof ComplexFilterPart) {
+            ComplexFilterPart complexTemplate = (ComplexFilterPart) template;
+            ComplexFilterPart complexFilterPart = new ComplexFilterPart();
+            complexFilterPart.setLeftOperand(bind(complexTemplate.getLeftOperand(),
+                                                  values,
+                                                  next));
+            complexFilterPart.setLogicalOperator(complexTemplate.getLogicalOperator());
+            complexFilterPart.setRightOperand(bind(complexTemplate.getRightOperand(),
+                                                   values,
+                                                   next));
+            return complexFilterPart;
+        }
+        SimpleFilterPart simpleTemplate = (SimpleFilterPart) template;
+        SimpleFilterPart simpleFilterPart = new SimpleFilterPart();
+        simpleFilterPart.setProperty(simpleTemplate.getProperty());
+        simpleFilterPart.setSimpleOperator(simpleTemplate.getSimpleOperator());
+        List<String> boundValues = simpleFilterPart.getValue();
+        for (String value : simpleTemplate.getValue()) {
+            if (value == ETExpression.PARAMETER) {
+                boundValues.add(values[next[0]++]);
+            } else {
+                boundValues.add(value);
+            }
+        }
+        return simpleFilterPart;
+    }
+
+    static int countParameters(FilterPart filterPart) {
+        if (filterPart == null) {
+            return 0;
+        }
+        if (filterPart instanceof ComplexFilterPart) {
+            ComplexFilterPart complexFilterPart = (ComplexFilterPart) filterPart;
+            return countParameters(complexFilterPart.getLeftOperand())
+                    + countParameters(complexFilterPart.getRightOperand());
+        }
+        int count = 0;
+        for (String value : ((SimpleFilterPart) filterPart).getValue()) {
+            if (value == ETExpression.PARAMETER) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
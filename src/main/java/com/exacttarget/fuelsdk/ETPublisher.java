@@ -0,0 +1,298 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An <code>ETPublisher</code> publishes all objects matching a
+ * retrieve to a subscriber, respecting the subscriber's demand:
+ * the next page is only retrieved while the subscriber has
+ * requested more objects than are buffered, and at most
+ * <code>maxBufferedPages</code> pages are buffered. Cancelling
+ * the subscription stops retrieving pages.
+ * <p>
+ * The <code>Subscriber</code> and <code>Subscription</code>
+ * interfaces mirror those of <code>java.util.concurrent.Flow</code>
+ * (which isn't available on Java 8), so adapting them on newer
+ * Java versions is a matter of delegation. Each subscriber gets
+ * its own retrieve. Signals to a subscriber are serialized but
+ * may be delivered on different threads of the executor.
+ */
+
+public class ETPublisher<T extends ETApiObject> {
+    private static final Logger logger = LoggerFactory.getLogger(ETPublisher.class);
+
+    private final ETPagingIterator.PageSource<T> source;
+    private final ExecutorService executor;
+    private final int maxBufferedPages;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param source            The PageSource that retrieves the pages
+     * @param executor          The ExecutorService pages are retrieved
+     *                          and delivered on
+     * @param maxBufferedPages  The maximum number of pages buffered
+    */
+    public ETPublisher(ETPagingIterator.PageSource<T> source,
+                       ExecutorService executor,
+                       int maxBufferedPages)
+    {
+        this.source = source;
+        this.executor = executor;
+        this.maxBufferedPages = Math.max(maxBufferedPages, 1);
+    }
+
+    /**
+     * @param subscriber    The Subscriber to publish the objects to
+     */
+    public void subscribe(Subscriber<? super T> subscriber) {
+        PageSubscription subscription = new PageSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * A <code>Subscriber</code> receives the published objects.
+     */
+    public interface Subscriber<T> {
+        public void onSubscribe(Subscription subscription);
+
+        public void onNext(T item);
+
+        public void onError(Throwable throwable);
+
+        public void onComplete();
+    }
+
+    /**
+     * A <code>Subscription</code> links a publisher and a subscriber.
+     */
+    public interface Subscription {
+        /**
+         * @param n     The number of additional objects requested
+         */
+        public void request(long n);
+
+        /**
+         * Stops publishing (and retrieving) objects.
+         */
+        public void cancel();
+    }
+
+    private class PageSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        // retrieved pages not yet taken over by drain()
+        private final Queue<ETResponse<T>> retrieved = new ConcurrentLinkedQueue<ETResponse<T>>();
+
+        private volatile boolean cancelled = false;
+        private volatile boolean retrieving = false;
+        private volatile Throwable error = null;
+        private volatile Throwable requestError = null;
+        private volatile Future<?> retrieval = null;
+
+        //
+        // Only accessed by drain(), which never runs concurrently:
+        //
+
+        private final Deque<Iterator<T>> pages = new ArrayDeque<Iterator<T>>();
+        private int buffered = 0;
+        private ETResponse<T> lastPage = null;
+        private boolean done = false;
+
+        private PageSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("non-positive request: " + n);
+                cancelled = true;
+                schedule();
+                return;
+            }
+            long current, next;
+            do {
+                current = demand.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, next));
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Future<?> retrieval = this.retrieval;
+            if (retrieval != null) {
+                retrieval.cancel(true);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                });
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    done = true;
+                    // cancel() may have run before the retrieve was submitted
+                    Future<?> retrieval = this.retrieval;
+                    if (retrieval != null) {
+                        retrieval.cancel(true);
+                    }
+                    pages.clear();
+                    retrieved.clear();
+                    // a bad request() cancels with an error
+                    if (requestError != null) {
+                        subscriber.onError(requestError);
+                    }
+                    return;
+                }
+
+                // read before polling so a completed retrieve is seen
+                boolean retrieving = this.retrieving;
+                ETResponse<T> page;
+                while ((page = retrieved.poll()) != null) {
+                    lastPage = page;
+                    if (!page.getObjects().isEmpty()) {
+                        pages.add(page.getObjects().iterator());
+                        buffered += page.getObjects().size();
+                    }
+                }
+
+                //
+                // Deliver buffered objects while there's demand:
+                //
+
+                while (buffered > 0 && demand.get() > 0 && !cancelled) {
+                    Iterator<T> objects = pages.peek();
+                    T object = objects.next();
+                    if (!objects.hasNext()) {
+                        pages.poll();
+                    }
+                    buffered--;
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    subscriber.onNext(object);
+                }
+                if (cancelled) {
+                    continue;
+                }
+
+                boolean exhausted = lastPage != null
+                        && (lastPage.hasMoreResults() == null || !lastPage.hasMoreResults());
+                if (buffered == 0 && !retrieving) {
+                    if (error != null) {
+                        done = true;
+                        subscriber.onError(error);
+                        return;
+                    }
+                    if (exhausted) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                }
+
+                //
+                // Retrieve the next page if the subscriber wants
+                // more than is buffered and there's room for it:
+                //
+
+                if (!retrieving && !exhausted && error == null
+                        && demand.get() > buffered
+                        && pages.size() < maxBufferedPages) {
+                    retrieve(lastPage);
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void retrieve(final ETResponse<T> previous) {
+            retrieving = true;
+            retrieval = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        ETResponse<T> page = source.retrievePage(previous);
+                        if (page.getStatus() == ETResult.Status.ERROR) {
+                            throw new ETSdkException("error retrieving page: "
+                                    + page.getResponseCode() + " "
+                                    + page.getResponseMessage());
+                        }
+                        retrieved.offer(page);
+                    } catch (Throwable ex) {
+                        if (!cancelled) {
+                            logger.debug("error retrieving page", ex);
+                        }
+                        error = ex;
+                    } finally {
+                        retrieving = false;
+                        schedule();
+                    }
+                }
+            });
+        }
+    }
+}
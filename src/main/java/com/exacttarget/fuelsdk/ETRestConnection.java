@@ -35,20 +35,25 @@
 package com.exacttarget.fuelsdk;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonIOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.ProtocolException;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * An <code>ETRestConnection</code> represents an active
@@ -64,6 +69,10 @@ public class ETRestConnection {
 
     private boolean isAuthConnection = false;
 
+    private ETRestTransport transport = null;
+
+    private ETWireLogger wireLogger = null;
+
     /**
     * Class constructor, Initializes a new instance of the class.
      * @param client    The ETClient object
@@ -91,6 +100,24 @@ public class ETRestConnection {
         this.endpoint = endpoint;
 
         this.isAuthConnection = isAuthConnection;
+
+        this.transport = client.getRestTransport();
+
+        this.wireLogger = new ETWireLogger(client.getConfiguration());
+    }
+
+    /**
+     * @return  The ETRestTransport used to send requests
+     */
+    public ETRestTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @param transport     The ETRestTransport used to send requests
+     */
+    public void setTransport(ETRestTransport transport) {
+        this.transport = transport;
     }
 
     /**
@@ -100,23 +127,7 @@ public class ETRestConnection {
     public Response get(String path)
         throws ETSdkException
     {
-        HttpURLConnection connection = null;
-        try {
-            Response response = new Response();
-            connection = sendRequest(path, Method.GET);
-            String json = receiveResponse(connection);
-            response.setRequestId(connection.getHeaderField("X-Mashery-Message-ID"));
-            response.setResponseCode(connection.getResponseCode());
-            response.setResponseMessage(connection.getResponseMessage());
-            response.setResponsePayload(json);
-            return response;
-        } catch (IOException ex) {
-            throw new ETSdkException(ex);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return execute(path, Method.GET, null);
     }
 
     /**
@@ -126,23 +137,20 @@ public class ETRestConnection {
     public Response post(String path, String payload)
         throws ETSdkException
     {
-        HttpURLConnection connection = null;
-        try {
-            Response response = new Response();
-            connection = sendRequest(path, Method.POST, payload);
-            String json = receiveResponse(connection);
-            response.setRequestId(connection.getHeaderField("X-Mashery-Message-ID"));
-            response.setResponseCode(connection.getResponseCode());
-            response.setResponseMessage(connection.getResponseMessage());
-            response.setResponsePayload(json);
-            return response;
-        } catch (IOException ex) {
-            throw new ETSdkException(ex);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return execute(path, Method.POST, stringBody(payload));
+    }
+
+    /**
+     * Serializes the object straight to the connection (rather
+     * than into a String first).
+     * @param   path    The path to POST or create
+     * @param   object  The object to POST
+     * @return  The Response object
+     */
+    public Response post(String path, ETRestObject object)
+        throws ETSdkException
+    {
+        return execute(path, Method.POST, jsonBody(object));
     }
 
     /**
@@ -152,23 +160,20 @@ public class ETRestConnection {
     public Response patch(String path, String payload)
         throws ETSdkException
     {
-        HttpURLConnection connection = null;
-        try {
-            Response response = new Response();
-            connection = sendRequest(path, Method.PATCH, payload);
-            String json = receiveResponse(connection);
-            response.setRequestId(connection.getHeaderField("X-Mashery-Message-ID"));
-            response.setResponseCode(connection.getResponseCode());
-            response.setResponseMessage(connection.getResponseMessage());
-            response.setResponsePayload(json);
-            return response;
-        } catch (IOException ex) {
-            throw new ETSdkException(ex);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-        }
+        return execute(path, Method.PATCH, stringBody(payload));
+    }
+
+    /**
+     * Serializes the object straight to the connection (rather
+     * than into a String first).
+     * @param   path    The path to PATCH or update
+     * @param   object  The object to PATCH
+     * @return  The Response object
+     */
+    public Response patch(String path, ETRestObject object)
+        throws ETSdkException
+    {
+        return execute(path, Method.PATCH, jsonBody(object));
     }
 
     /**
@@ -178,172 +183,289 @@ public class ETRestConnection {
     public Response delete(String path)
         throws ETSdkException
     {
-        HttpURLConnection connection = null;
+        return execute(path, Method.DELETE, null);
+    }
+
+    /**
+     * Sends a GET request and hands the response body to the handler
+     * as it arrives (rather than reading it into a String first).
+     * @param   path    The path to GET the response
+     * @param   handler The ResponseHandler that reads the response body
+     * @return  The result of the handler
+     */
+    public <R> R get(String path, ResponseHandler<R> handler)
+        throws ETSdkException
+    {
+        return execute(path, Method.GET, null, handler);
+    }
+
+    private Response execute(String path, Method method, ETRestTransport.Body body)
+        throws ETSdkException
+    {
+        return execute(path, method, body, new ResponseHandler<Response>() {
+            @Override
+            public Response handle(Response response, Reader body)
+                throws IOException
+            {
+                response.setResponsePayload(read(body));
+                return response;
+            }
+        });
+    }
+
+    private <R> R execute(String path,
+                          Method method,
+                          ETRestTransport.Body body,
+                          ResponseHandler<R> handler)
+        throws ETSdkException
+    {
+        String accessToken = null;
+        if (!isAuthConnection) {
+            accessToken = client.requestToken();
+        }
+        ETWireLogger.Capture capture = wireLogger.capture();
+        ETRestTransport.Exchange exchange = sendRequest(path, method, body, accessToken, capture);
+        Response response = null;
         try {
-            Response response = new Response();
-            connection = sendRequest(path, Method.DELETE);
-            String json = receiveResponse(connection);
-            response.setRequestId(connection.getHeaderField("X-Mashery-Message-ID"));
-            response.setResponseCode(connection.getResponseCode());
-            response.setResponseMessage(connection.getResponseMessage());
-            response.setResponsePayload(json);
-            return response;
+            if (!isAuthConnection
+                    && exchange.getResponseCode() == HttpURLConnection.HTTP_UNAUTHORIZED)
+            {
+                //
+                // The token was revoked or expired early--refresh it
+                // and retry the request (once):
+                //
+
+                logger.debug("access token rejected, refreshing");
+                String refreshedToken = client.refreshAccessToken(accessToken);
+                if (refreshedToken != null && !refreshedToken.equals(accessToken)) {
+                    closeExchange(exchange);
+                    exchange = null;
+                    exchange = sendRequest(path, method, body, refreshedToken, capture);
+                }
+            }
+            response = new Response();
+            response.setRequestId(exchange.getHeader("X-Mashery-Message-ID"));
+            response.setResponseCode(exchange.getResponseCode());
+            response.setResponseMessage(exchange.getResponseMessage());
+            return handler.handle(response, receiveResponse(exchange, capture));
         } catch (IOException ex) {
-            throw new ETSdkException(ex);
+            throw new ETSdkException("error reading response", ex);
         } finally {
-            if (connection != null) {
-                connection.disconnect();
+            if (capture != null && response != null) {
+                // logs as much of the body as the handler read
+                capture.logResponse(response.getResponseCode() + " "
+                        + response.getResponseMessage());
+            }
+            if (exchange != null) {
+                closeExchange(exchange);
             }
         }
     }
 
+    private void closeExchange(ETRestTransport.Exchange exchange) {
+        try {
+            exchange.close();
+        } catch (IOException ex) {
+            logger.debug("error closing exchange", ex);
+        }
+    }
+
     private final static int URL_MAX_LENGTH = 2048;
 
-    private HttpURLConnection sendRequest(String path, Method method)
+    private ETRestTransport.Exchange sendRequest(String path,
+                                                 Method method,
+                                                 ETRestTransport.Body body,
+                                                 String accessToken,
+                                                 ETWireLogger.Capture capture)
         throws ETSdkException
     {
-        if (path.length() > URL_MAX_LENGTH) {
+        if (body == null && path.length() > URL_MAX_LENGTH) {
             throw new ETSdkException(path + ": URL too long");
         }
-        return sendRequest(path, method, null);
-    }
-
-    private HttpURLConnection sendRequest(String path, Method method, String payload)
-        throws ETSdkException
-    {
         URL url = null;
         try {
             url = new URL(endpoint + path);
         } catch (MalformedURLException ex) {
             throw new ETSdkException(endpoint + path + ": bad URL", ex);
         }
-        return sendRequest(url, method, payload);
+        return sendRequest(url, method, body, accessToken, capture);
     }
 
-    private HttpURLConnection sendRequest(URL url, Method method, String payload)
+    private ETRestTransport.Exchange sendRequest(URL url,
+                                                 Method method,
+                                                 ETRestTransport.Body body,
+                                                 String accessToken,
+                                                 ETWireLogger.Capture capture)
         throws ETSdkException
     {
-        Gson gson = client.getGson();
-
         logger.debug(method + " " + url);
 
-        HttpURLConnection connection = null;
-        try {
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod(method.toString());
-        } catch (ProtocolException ex) {
-            throw new ETSdkException("error setting request method: " + method.toString(), ex);
-        } catch (IOException ex) {
-            throw new ETSdkException("error opening " + url, ex);
-        }
+        Map<String, String> headers = new LinkedHashMap<String, String>();
 
         switch(method) {
           case GET:
-            connection.setDoInput(true);
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setRequestProperty("User-Agent", "FuelSDK-Java");
+            headers.put("Accept", "application/json");
+            headers.put("User-Agent", "FuelSDK-Java");
             break;
           case POST:
           case PATCH:
           case DELETE:
-            connection.setDoOutput(true);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("User-Agent", "FuelSDK-Java");
+            headers.put("Content-Type", "application/json");
+            headers.put("User-Agent", "FuelSDK-Java");
             break;
           default:
             throw new ETSdkException("unsupported request method: " + method.toString());
         }
 
-        if (!isAuthConnection) {
-            connection.setRequestProperty("Authorization", "Bearer " + client.getAccessToken());
+        if (accessToken != null) {
+            headers.put("Authorization", "Bearer " + accessToken);
         }
 
-        if (logger.isDebugEnabled()) {
-            for (String key : connection.getRequestProperties().keySet()) {
-                logger.debug(key + ": " + connection.getRequestProperty(key));
-            }
+        if (capture != null && body != null) {
+            body = new CapturedBody(body, capture);
         }
 
-        if (payload != null) {
-            if (logger.isDebugEnabled()) {
-                JsonParser jsonParser = new JsonParser();
-                String payloadPrettyPrinted =
-                        gson.toJson(jsonParser.parse(payload));
-                for (String line : payloadPrettyPrinted.split("\\n")) {
-                    logger.debug(line);
-                }
-            }
-            OutputStream os = null;
-            try {
-                os = connection.getOutputStream();
-                os.write(payload.getBytes());
-                os.flush();
-            } catch (IOException ex) {
-                throw new ETSdkException("error writing " + url, ex);
-            } finally {
-                if (os != null) {
-                    try {
-                        os.close();
-                    } catch (IOException ex) {
-                        throw new ETSdkException("error closing connection after writing " + url, ex);
-                    }
+        ETRestTransport.Exchange exchange = transport.execute(method, url, headers, body);
+
+        if (capture != null) {
+            StringBuilder message = new StringBuilder();
+            message.append(method).append(' ').append(url);
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                message.append('\n').append(header.getKey()).append(": ");
+                if (header.getKey().equals("Authorization")) {
+                    message.append("Bearer ...");
+                } else {
+                    message.append(header.getValue());
                 }
             }
+            capture.logRequest(message.toString());
         }
 
         try {
-            logger.debug(connection.getResponseCode() + " " + connection.getResponseMessage());
+            logger.debug(exchange.getResponseCode() + " " + exchange.getResponseMessage());
         } catch (IOException ex) {
             throw new ETSdkException("error getting response code / message", ex);
         }
 
-        return connection;
+        return exchange;
     }
 
-    private String receiveResponse(HttpURLConnection connection)
+    private Reader receiveResponse(ETRestTransport.Exchange exchange,
+                                   ETWireLogger.Capture capture)
         throws ETSdkException
     {
-        Gson gson = client.getGson();
-
         InputStream is = null;
         try {
-            if (connection.getResponseCode() < 400) {
-                is = connection.getInputStream();
-            } else {
-                is = connection.getErrorStream();
-            }
+            is = exchange.getInputStream();
         } catch (IOException ex) {
-            throw new ETSdkException("error opening " + connection.getURL(), ex);
+            throw new ETSdkException("error opening response stream", ex);
         }
 
-        StringBuilder stringBuilder = new StringBuilder();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-        try {
-            String line = null;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line);
+        if (capture != null) {
+            is = capture.wrap(is);
+        }
+
+        // closing the exchange closes the stream
+        return new InputStreamReader(is, UTF_8);
+    }
+
+    private static ETRestTransport.Body stringBody(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        final byte[] bytes = payload.getBytes(UTF_8);
+        return new ETRestTransport.Body() {
+            @Override
+            public long getContentLength() {
+                return bytes.length;
             }
-        } catch (IOException ex) {
-            throw new ETSdkException("error reading " + connection.getURL(), ex);
-        } finally {
-            try {
-                reader.close();
-            } catch (IOException ex) {
-                throw new ETSdkException("error closing " + connection.getURL(), ex);
+
+            @Override
+            public void writeTo(OutputStream out)
+                throws IOException
+            {
+                out.write(bytes);
             }
-        }
+        };
+    }
 
-        String response = stringBuilder.toString();
+    private ETRestTransport.Body jsonBody(final ETRestObject object) {
+        final Gson gson = client.getGson();
+        return new ETRestTransport.Body() {
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
 
-        if (logger.isDebugEnabled()) {
-            JsonParser jsonParser = new JsonParser();
-            String responsePrettyPrinted = gson.toJson(jsonParser.parse(response));
-            for (String line : responsePrettyPrinted.split("\\n")) {
-                logger.debug(line);
+            @Override
+            public void writeTo(OutputStream out)
+                throws IOException
+            {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+                try {
+                    gson.toJson(object, object.getClass(), writer);
+                } catch (JsonIOException ex) {
+                    throw new IOException(ex);
+                }
+                // flush rather than close--the transport owns the stream
+                writer.flush();
             }
+        };
+    }
+
+    /**
+     * Copies the body into the capture as it is written.
+     */
+    private static class CapturedBody implements ETRestTransport.Body {
+        private final ETRestTransport.Body body;
+        private final ETWireLogger.Capture capture;
+
+        private CapturedBody(ETRestTransport.Body body,
+                             ETWireLogger.Capture capture)
+        {
+            this.body = body;
+            this.capture = capture;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.getContentLength();
+        }
+
+        @Override
+        public void writeTo(OutputStream out)
+            throws IOException
+        {
+            body.writeTo(capture.wrap(out));
+        }
+    }
+
+    private static String read(Reader reader)
+        throws IOException
+    {
+        StringBuilder stringBuilder = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            stringBuilder.append(buffer, 0, n);
         }
+        return stringBuilder.toString();
+    }
 
-        return response;
+    /**
+     * A <code>ResponseHandler</code> reads the body of a response
+     * while it is being received.
+     */
+    public interface ResponseHandler<R> {
+        /**
+         * @param response  The Response object (without payload)
+         * @param body      The response body
+         * @return          The result
+         * @throws IOException
+         * @throws ETSdkException
+         */
+        public R handle(Response response, Reader body)
+            throws IOException, ETSdkException;
     }
 
     /**
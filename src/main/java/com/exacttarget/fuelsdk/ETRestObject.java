@@ -41,15 +41,28 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 
 import static com.exacttarget.fuelsdk.ETRestConnection.Method.DELETE;
 import static com.exacttarget.fuelsdk.ETRestConnection.Method.PATCH;
@@ -63,6 +76,13 @@ import static com.exacttarget.fuelsdk.ETRestConnection.Method.POST;
 public abstract class ETRestObject extends ETApiObject {
     private static final Logger logger = LoggerFactory.getLogger(ETRestObject.class);
 
+    /**
+     * The default page size
+     */
+    public final static int PAGE_SIZE = 50;
+
+    private final static int DEFAULT_PAGE_CONCURRENCY = 4;
+
     /**
      * 
      * @param <T>           The type which extends from ETRestObject
@@ -80,7 +100,43 @@ public abstract class ETRestObject extends ETApiObject {
                                                                   ETFilter filter)
         throws ETSdkException
     {
-        ETResponse<T> response = new ETResponse<T>();
+        final List<ETResult<T>> results = new ArrayList<ETResult<T>>();
+        ETResponse<T> response = retrieve(client, type, page, pageSize, filter, new ObjectCallback<T>() {
+            @Override
+            public void onObject(T object) {
+                ETResult<T> result = new ETResult<T>();
+                result.setObject(object);
+                results.add(result);
+            }
+        });
+        response.addResults(results);
+        return response;
+    }
+
+    /**
+     * Retrieves one page, passing each object to the callback as
+     * soon as it has been read off the wire (so only one object
+     * is held in memory at a time). The returned ETResponse holds
+     * the status and paging information but no results.
+     * @param <T>           The type which extends from ETRestObject
+     * @param client        The ETClient object
+     * @param type          The class type to retrieve
+     * @param page          The page number
+     * @param pageSize      The page size
+     * @param filter        The ETFilter object
+     * @param callback      The ObjectCallback to pass the objects to
+     * @return              The ETResponse object of type T which extends from ETRestObject
+     * @throws ETSdkException
+     */
+    public static <T extends ETRestObject> ETResponse<T> retrieve(final ETClient client,
+                                                                  final Class<T> type,
+                                                                  Integer page,
+                                                                  Integer pageSize,
+                                                                  ETFilter filter,
+                                                                  final ObjectCallback<T> callback)
+        throws ETSdkException
+    {
+        final ETResponse<T> response = new ETResponse<T>();
 
         ETRestConnection connection = client.getRestConnection();
 
@@ -132,7 +188,7 @@ public abstract class ETRestObject extends ETApiObject {
                 // Append the primary key to the the path:
                 //
 
-                String s = "/" + expression.getValue();
+                String s = "/" + toPathSegment(expression.getValue());
                 stringBuilder.append(s);
                 if (logger.isTraceEnabled()) {
                     logger.trace("appended primary key: " + s);
@@ -229,20 +285,245 @@ public abstract class ETRestObject extends ETApiObject {
 
         logger.trace("GET " + path);
 
-        Response r = connection.get(path);
+        final String collectionName = collection;
+        final String totalCountName = totalCount;
+
+        connection.get(path, new ETRestConnection.ResponseHandler<Void>() {
+            @Override
+            public Void handle(Response r, Reader body)
+                throws IOException, ETSdkException
+            {
+                response.setRequestId(r.getRequestId());
+                if (r.getResponseCode() >= 200 && r.getResponseCode() <= 299) {
+                    response.setStatus(ETResult.Status.OK);
+                } else if (r.getResponseCode() >= 400 && r.getResponseCode() <= 599) {
+                    response.setStatus(ETResult.Status.ERROR);
+                }
+                response.setResponseCode(r.getResponseCode().toString());
+                response.setResponseMessage(r.getResponseMessage());
 
-        response.setRequestId(r.getRequestId());
-        if (r.getResponseCode() >= 200 && r.getResponseCode() <= 299) {
-            response.setStatus(ETResult.Status.OK);
-        } else if (r.getResponseCode() >= 400 && r.getResponseCode() <= 599) {
-            response.setStatus(ETResult.Status.ERROR);
+                try {
+                    readObjects(client, type, new JsonReader(body),
+                                collectionName, totalCountName,
+                                response, callback);
+                } catch (JsonParseException ex) {
+                    throw new ETSdkException("error parsing response", ex);
+                } catch (IllegalStateException ex) {
+                    throw new ETSdkException("error parsing response", ex);
+                }
+                return null;
+            }
+        });
+
+        return response;
+    }
+
+    /**
+     * Retrieves all pages. Once the first page reveals the total
+     * count, the remaining pages are requested concurrently (at
+     * most <code>concurrency</code> at a time) and the results
+     * are returned in order in a single ETResponse.
+     * @param <T>           The type which extends from ETRestObject
+     * @param client        The ETClient object
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param concurrency   The maximum number of concurrent requests
+     *                      (null for the restPageConcurrency setting)
+     * @param filter        The ETFilter object
+     * @return              The ETResponse object of type T which extends from ETRestObject
+     * @throws ETSdkException
+     */
+    public static <T extends ETRestObject> ETResponse<T> retrieveAll(ETClient client,
+                                                                     Class<T> type,
+                                                                     Integer pageSize,
+                                                                     Integer concurrency,
+                                                                     ETFilter filter)
+        throws ETSdkException
+    {
+        final ETResponse<T> response = new ETResponse<T>();
+        retrieveAll(client, type, pageSize, concurrency, filter, true, new PageCallback<T>() {
+            @Override
+            public void onPage(ETResponse<T> page) {
+                if (response.getRequestId() == null) {
+                    response.setRequestId(page.getRequestId());
+                    response.setStatus(page.getStatus());
+                    response.setResponseCode(page.getResponseCode());
+                    response.setResponseMessage(page.getResponseMessage());
+                    response.setPageSize(page.getPageSize());
+                    response.setTotalCount(page.getTotalCount());
+                }
+                response.addResults(page.getResults());
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Retrieves all pages like <code>retrieveAll</code>, but
+     * passes each page to the callback as soon as it arrives
+     * (i.e., not necessarily in order). The callback is always
+     * called on the calling thread.
+     * @param <T>           The type which extends from ETRestObject
+     * @param client        The ETClient object
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size (null for the default)
+     * @param concurrency   The maximum number of concurrent requests
+     *                      (null for the restPageConcurrency setting)
+     * @param filter        The ETFilter object
+     * @param callback      The PageCallback to pass the pages to
+     * @throws ETSdkException
+     */
+    public static <T extends ETRestObject> void retrieveAll(ETClient client,
+                                                            Class<T> type,
+                                                            Integer pageSize,
+                                                            Integer concurrency,
+                                                            ETFilter filter,
+                                                            PageCallback<T> callback)
+        throws ETSdkException
+    {
+        retrieveAll(client, type, pageSize, concurrency, filter, false, callback);
+    }
+
+    private static <T extends ETRestObject> void retrieveAll(final ETClient client,
+                                                             final Class<T> type,
+                                                             Integer pageSize,
+                                                             Integer concurrency,
+                                                             final ETFilter filter,
+                                                             boolean ordered,
+                                                             PageCallback<T> callback)
+        throws ETSdkException
+    {
+        if (pageSize == null) {
+            pageSize = PAGE_SIZE;
+        }
+        if (concurrency == null) {
+            concurrency = client.getConfiguration().getInteger("restPageConcurrency",
+                    DEFAULT_PAGE_CONCURRENCY);
+        }
+        if (concurrency < 1) {
+            concurrency = 1;
+        }
+
+        ETResponse<T> firstPage = retrieve(client, type, 1, pageSize, filter);
+        checkPage(firstPage, 1);
+        callback.onPage(firstPage);
+        if (firstPage.hasMoreResults() == null || !firstPage.hasMoreResults()) {
+            return;
+        }
+
+        //
+        // The first page tells us how many pages there are,
+        // so request the rest concurrently:
+        //
+
+        int pageCount = (firstPage.getTotalCount() + firstPage.getPageSize() - 1)
+                / firstPage.getPageSize();
+        final int size = firstPage.getPageSize();
+
+        CompletionService<ETResponse<T>> completionService =
+                new ExecutorCompletionService<ETResponse<T>>(client.getExecutor());
+        Map<Future<ETResponse<T>>, Integer> outstanding =
+                new HashMap<Future<ETResponse<T>>, Integer>();
+        Map<Integer, ETResponse<T>> completed = new HashMap<Integer, ETResponse<T>>();
+        int nextPage = 2;
+        int nextCallbackPage = 2;
+
+        try {
+            while (nextPage <= pageCount || !outstanding.isEmpty()) {
+                while (nextPage <= pageCount && outstanding.size() < concurrency) {
+                    final int page = nextPage++;
+                    outstanding.put(completionService.submit(new Callable<ETResponse<T>>() {
+                        @Override
+                        public ETResponse<T> call()
+                            throws ETSdkException
+                        {
+                            return retrieve(client, type, page, size, filter);
+                        }
+                    }), page);
+                }
+
+                Future<ETResponse<T>> future = completionService.take();
+                int page = outstanding.remove(future);
+                ETResponse<T> response = null;
+                try {
+                    response = future.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof ETSdkException) {
+                        throw (ETSdkException) ex.getCause();
+                    }
+                    throw new ETSdkException("error retrieving page " + page, ex.getCause());
+                }
+                checkPage(response, page);
+
+                if (ordered) {
+                    completed.put(page, response);
+                    while (completed.containsKey(nextCallbackPage)) {
+                        callback.onPage(completed.remove(nextCallbackPage++));
+                    }
+                } else {
+                    callback.onPage(response);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ETSdkException("interrupted retrieving pages", ex);
+        } finally {
+            for (Future<ETResponse<T>> future : outstanding.keySet()) {
+                future.cancel(true);
+            }
         }
-        response.setResponseCode(r.getResponseCode().toString());
-        response.setResponseMessage(r.getResponseMessage());
+    }
 
+    private static void checkPage(ETResponse<?> response, int page)
+        throws ETSdkException
+    {
+        if (response.getStatus() == ETResult.Status.ERROR) {
+            throw new ETSdkException("error retrieving page " + page
+                    + " (" + response.getResponseCode()
+                    + " " + response.getResponseMessage() + ")");
+        }
+    }
+
+    /**
+     * Reads a retrieve response, binding the elements of the
+     * collection one at a time as they are read.
+     */
+    private static <T extends ETRestObject> void readObjects(ETClient client,
+                                                             Class<T> type,
+                                                             JsonReader reader,
+                                                             String collection,
+                                                             String totalCount,
+                                                             ETResponse<T> response,
+                                                             ObjectCallback<T> callback)
+        throws IOException, ETSdkException
+    {
         Gson gson = client.getGson();
-        JsonParser jsonParser = new JsonParser();
-        JsonObject jsonObject = jsonParser.parse(r.getResponsePayload()).getAsJsonObject();
+
+        //
+        // Everything but the collection is small, so it's
+        // kept as a tree until the end of the response:
+        //
+
+        JsonObject jsonObject = new JsonObject();
+        boolean readCollection = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(collection) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    T object = gson.fromJson(reader, type);
+                    object.setClient(client); // XXX
+                    callback.onObject(object);
+                }
+                reader.endArray();
+                readCollection = true;
+            } else {
+                jsonObject.add(name, gson.fromJson(reader, JsonElement.class));
+            }
+        }
+        reader.endObject();
 
         if (jsonObject.get("page") != null) {
             response.setPage(jsonObject.get("page").getAsInt());
@@ -255,27 +536,38 @@ public abstract class ETRestObject extends ETApiObject {
             if (response.getPage() * response.getPageSize() < response.getTotalCount()) {
                 response.setMoreResults(true);
             }
-
-            JsonArray elements = jsonObject.get(collection).getAsJsonArray();
-
-            for (JsonElement element : elements) {
-                // XXX duplicate code A
-                T object = gson.fromJson(element, type);
-                object.setClient(client); // XXX
-                ETResult<T> result = new ETResult<T>();
-                result.setObject(object);
-                response.addResult(result);
-            }
-        } else {
-            // XXX duplicate code A
+        } else if (!readCollection) {
+            // a single object
             T object = gson.fromJson(jsonObject, type);
             object.setClient(client); // XXX
-            ETResult<T> result = new ETResult<T>();
-            result.setObject(object);
-            response.addResult(result);
+            callback.onObject(object);
         }
+    }
 
-        return response;
+    /**
+     * An <code>ObjectCallback</code> receives the objects retrieved
+     * by <code>retrieve</code> as they are read.
+     */
+    public interface ObjectCallback<T extends ETRestObject> {
+        /**
+         * @param object    The object
+         * @throws ETSdkException
+         */
+        public void onObject(T object)
+            throws ETSdkException;
+    }
+
+    /**
+     * A <code>PageCallback</code> receives the pages retrieved
+     * by <code>retrieveAll</code>.
+     */
+    public interface PageCallback<T extends ETRestObject> {
+        /**
+         * @param page  The page
+         * @throws ETSdkException
+         */
+        public void onPage(ETResponse<T> page)
+            throws ETSdkException;
     }
 
     /**
@@ -373,27 +665,17 @@ public abstract class ETRestObject extends ETApiObject {
                 throw new ETSdkException("invalid method: " + method);
             }
 
-            String requestPayload = null;
-            if (method != DELETE) {
-                // no request payload for deletes
-                requestPayload = gson.toJson(object);
-                if (logger.isTraceEnabled()) {
-                    JsonParser jsonParser = new JsonParser();
-                    JsonObject jsonObject = jsonParser.parse(requestPayload).getAsJsonObject();
-                    String jsonPrettyPrinted = gson.toJson(jsonObject);
-                    for (String line : jsonPrettyPrinted.split("\\n")) {
-                        logger.trace(line);
-                    }
-                }
-            }
+            //
+            // The object is serialized straight to the connection:
+            //
 
             Response r = null;
             switch (method) {
               case POST:
-                r = connection.post(path, requestPayload);
+                r = connection.post(path, object);
                 break;
               case PATCH:
-                r = connection.patch(path + "/" + object.getId(), requestPayload);
+                r = connection.patch(path + "/" + object.getId(), object);
                 break;
               case DELETE:
                 r = connection.delete(path + "/" + object.getId());
@@ -414,14 +696,6 @@ public abstract class ETRestObject extends ETApiObject {
             if (method != DELETE) {
                 // no response payload for deletes
                 String responsePayload = r.getResponsePayload();
-                JsonParser jsonParser = new JsonParser();
-                JsonObject jsonObject = jsonParser.parse(responsePayload).getAsJsonObject();
-                if (logger.isTraceEnabled()) {
-                    String jsonPrettyPrinted = gson.toJson(jsonObject);
-                    for (String line : jsonPrettyPrinted.split("\\n")) {
-                        logger.trace(line);
-                    }
-                }
                 @SuppressWarnings("unchecked")
                 T responseObject = (T) gson.fromJson(responsePayload, object.getClass());
                 responseObject.setClient(client); // XXX
@@ -582,6 +856,21 @@ public abstract class ETRestObject extends ETApiObject {
         }
     }
 
+    /**
+     * @param value         The value (e.g., a primary key)
+     * @return              The value URL encoded as a path segment
+     */
+    static String toPathSegment(String value)
+        throws ETSdkException
+    {
+        try {
+            // URLEncoder encodes for forms, where a space is "+"
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException ex) {
+            throw new ETSdkException("error URL encoding " + value, ex);
+        }
+    }
+
     /**
      * 
      * @param expression    The ETExpression object as filter
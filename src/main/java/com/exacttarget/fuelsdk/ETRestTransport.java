@@ -0,0 +1,123 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * An <code>ETRestTransport</code> sends HTTP requests on behalf
+ * of an <code>ETRestConnection</code>. Implementations are
+ * shared by all REST connections of an <code>ETClient</code>
+ * and must be thread safe.
+ */
+
+public interface ETRestTransport {
+    /**
+     * @param method    The HTTP method
+     * @param url       The request URL
+     * @param headers   The request headers
+     * @param body      The request body, or null if there is none
+     * @return          The Exchange holding the response
+     * @throws ETSdkException
+     */
+    public Exchange execute(ETRestConnection.Method method,
+                            URL url,
+                            Map<String, String> headers,
+                            Body body)
+        throws ETSdkException;
+
+    /**
+     * Releases all resources (e.g., pooled connections)
+     * held by the transport.
+     */
+    public void close();
+
+    /**
+     * A <code>Body</code> writes a request body straight to the
+     * connection. It may be written more than once (e.g., when a
+     * request is retried with a refreshed access token).
+     */
+    public interface Body {
+        /**
+         * @return  The length of the body in bytes, or -1 if it isn't
+         *          known in advance (in which case it is sent using
+         *          chunked transfer encoding)
+         */
+        public long getContentLength();
+
+        /**
+         * @param   out     The stream to write the body to (which
+         *                  must be left open)
+         */
+        public void writeTo(OutputStream out)
+            throws IOException;
+    }
+
+    /**
+     * An <code>Exchange</code> represents a response whose body
+     * has not been read yet. It must be closed once the body
+     * has been read so the underlying connection can be reused.
+     */
+    public interface Exchange extends Closeable {
+        /**
+         * @return  The HTTP response code
+         */
+        public int getResponseCode()
+            throws IOException;
+
+        /**
+         * @return  The HTTP response message
+         */
+        public String getResponseMessage()
+            throws IOException;
+
+        /**
+         * @param   name    The header name
+         * @return  The value of the header, or null if not present
+         */
+        public String getHeader(String name);
+
+        /**
+         * @return  The response body (never null)
+         */
+        public InputStream getInputStream()
+            throws IOException;
+    }
+}
@@ -0,0 +1,179 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageContentsList;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.wsdl.interceptors.DocLiteralInInterceptor;
+
+import com.exacttarget.fuelsdk.internal.APIObject;
+import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
+
+/**
+ * An <code>ETRetrieveResultsInterceptor</code> reads a
+ * RetrieveResponseMsg off the response stream itself if the
+ * call was made with an
+ * <code>ETSoapConnection.ResultHandler</code>: each
+ * <code>Results</code> element is unmarshalled on its own and
+ * handed to the handler, so the results of a page are never
+ * all in memory at once. The RetrieveResponseMsg returned by
+ * the call has no results. Calls made without a handler are
+ * left to the JAXB data binding.
+ */
+
+class ETRetrieveResultsInterceptor extends AbstractPhaseInterceptor<Message> {
+    static final String RESULT_HANDLER = ETRetrieveResultsInterceptor.class.getName() + ".resultHandler";
+
+    private static final String NAMESPACE = "http://exacttarget.com/wsdl/partnerAPI";
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+    */
+    ETRetrieveResultsInterceptor() {
+        super(Phase.UNMARSHAL);
+        addBefore(DocLiteralInInterceptor.class.getName());
+    }
+
+    @Override
+    public void handleMessage(Message message) {
+        Message outMessage = message.getExchange().getOutMessage();
+        if (outMessage == null) {
+            return;
+        }
+        ETSoapConnection.ResultHandler handler = (ETSoapConnection.ResultHandler) outMessage.get(RESULT_HANDLER);
+        if (handler == null) {
+            return;
+        }
+        XMLStreamReader reader = message.getContent(XMLStreamReader.class);
+        if (reader == null) {
+            return;
+        }
+
+        try {
+            if (!toStartElement(reader)
+                    || !NAMESPACE.equals(reader.getNamespaceURI())
+                    || !reader.getLocalName().equals("RetrieveResponseMsg"))
+            {
+                return;
+            }
+
+            RetrieveResponseMsg retrieveResponseMsg = new RetrieveResponseMsg();
+            Unmarshaller unmarshaller = ETSoapConnection.getJAXBContext().createUnmarshaller();
+
+            reader.nextTag();
+            while (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (name.equals("Results")) {
+                    // leaves the reader just past the element
+                    APIObject result = unmarshaller.unmarshal(reader, APIObject.class).getValue();
+                    handler.onResult(result);
+                } else if (name.equals("RequestID")) {
+                    retrieveResponseMsg.setRequestID(reader.getElementText());
+                    reader.next();
+                } else if (name.equals("OverallStatus")) {
+                    retrieveResponseMsg.setOverallStatus(reader.getElementText());
+                    reader.next();
+                } else {
+                    skipElement(reader);
+                }
+                toTag(reader);
+            }
+
+            //
+            // The reader is now at the end of the RetrieveResponseMsg,
+            // so DocLiteralInInterceptor finds nothing left to read:
+            //
+
+            MessageContentsList contents = new MessageContentsList();
+            contents.add(retrieveResponseMsg);
+            message.setContent(List.class, contents);
+        } catch (XMLStreamException ex) {
+            throw new Fault(ex);
+        } catch (JAXBException ex) {
+            throw new Fault(ex);
+        } catch (ETSdkException ex) {
+            throw new Fault(ex);
+        }
+    }
+
+    private static boolean toStartElement(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            if (reader.getEventType() == XMLStreamConstants.END_ELEMENT
+                    || !reader.hasNext())
+            {
+                return false;
+            }
+            reader.next();
+        }
+        return true;
+    }
+
+    private static void skipElement(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        int depth = 0;
+        do {
+            if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (reader.getEventType() == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            reader.next();
+        } while (depth > 0);
+    }
+
+    private static void toTag(XMLStreamReader reader)
+        throws XMLStreamException
+    {
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT
+                && reader.getEventType() != XMLStreamConstants.END_ELEMENT)
+        {
+            reader.next();
+        }
+    }
+}
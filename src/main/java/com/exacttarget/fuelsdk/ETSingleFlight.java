@@ -0,0 +1,247 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An <code>ETSingleFlight</code> coalesces identical concurrent
+ * calls: while a call with a given key is in flight, callers
+ * asking for the same key wait for it and share its result (or
+ * exception) rather than making a call of their own. Nothing is
+ * cached once the call completes. A call that fails because its
+ * own asynchronous call (see <code>ETCallContext</code>) was
+ * cancelled or timed out doesn't pass the failure on: one of
+ * the callers waiting for it makes the call instead.
+ */
+
+class ETSingleFlight {
+    private final ConcurrentMap<String, Call<?>> calls =
+            new ConcurrentHashMap<String, Call<?>>();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param key       The key identifying the call
+     * @param loader    The Loader that makes the call
+     * @return          The result of the call
+     * @throws ETSdkException
+     */
+    @SuppressWarnings("unchecked")
+    <V> V execute(String key, Loader<V> loader)
+        throws ETSdkException
+    {
+        while (true) {
+            Call<V> call = new Call<V>();
+            Call<?> inFlight = calls.putIfAbsent(key, call);
+            if (inFlight == null) {
+                return load(key, call, loader);
+            }
+            coalesced.incrementAndGet();
+            Call<V> leader = (Call<V>) inFlight;
+            leader.await(ETCallContext.current());
+            if (!leader.abandoned) {
+                return leader.getResult();
+            }
+            // the leader gave up, so try to make the call ourselves
+            coalesced.decrementAndGet();
+        }
+    }
+
+    private <V> V load(String key, Call<V> call, Loader<V> loader)
+        throws ETSdkException
+    {
+        try {
+            V result = loader.load();
+            call.complete(result, null, false);
+            return result;
+        } catch (ETSdkException | RuntimeException | Error ex) {
+            //
+            // If the call failed because it was cancelled or ran
+            // out of time, the failure is the caller's own and
+            // is of no use to the others:
+            //
+
+            ETCallContext context = ETCallContext.current();
+            boolean abandoned = context != null
+                    && (context.isCancelled() || context.isExpired());
+            call.complete(null, ex, abandoned);
+            throw ex;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * @return  The number of calls that shared the result of
+     *          an identical call already in flight
+     */
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @param type          The class type to retrieve
+     * @param page          The page number
+     * @param pageSize      The page size
+     * @param continueRequest The continue request
+     * @param filter        The ETFilter object
+     * @return              The key identifying the retrieve (the
+     *                      same for filters that only differ in the
+     *                      order of their properties)
+     */
+    static String retrieveKey(Class<?> type,
+                              Integer page,
+                              Integer pageSize,
+                              String continueRequest,
+                              ETFilter filter)
+    {
+        StringBuilder key = new StringBuilder();
+        append(key, type.getName());
+        append(key, page);
+        append(key, pageSize);
+        append(key, continueRequest);
+        append(key, filter.getExpression());
+        List<String> properties = new ArrayList<String>(filter.getProperties());
+        Collections.sort(properties);
+        append(key, properties);
+        append(key, filter.getOrderBy());
+        append(key, filter.getOrderByAsc());
+        return key.toString();
+    }
+
+    //
+    // Every value is length-prefixed (and every expression
+    // bracketed) so different retrieves never share a key:
+    //
+
+    private static void append(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append('-');
+        } else {
+            String s = value.toString();
+            key.append(s.length()).append(':').append(s);
+        }
+    }
+
+    private static void append(StringBuilder key, List<String> values) {
+        key.append('[');
+        for (String value : values) {
+            append(key, value);
+        }
+        key.append(']');
+    }
+
+    private static void append(StringBuilder key, ETExpression expression) {
+        key.append('(');
+        append(key, expression.getOperator());
+        append(key, expression.getProperty());
+        append(key, expression.getValues());
+        for (ETExpression subexpression : expression.getSubexpressions()) {
+            append(key, subexpression);
+        }
+        key.append(')');
+    }
+
+    private static class Call<V> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private V result = null;
+        private Throwable exception = null;
+        private boolean abandoned = false;
+
+        private void complete(V result, Throwable exception, boolean abandoned) {
+            this.result = result;
+            this.exception = exception;
+            this.abandoned = abandoned;
+            done.countDown();
+        }
+
+        //
+        // An asynchronous caller waits no longer than its own
+        // deadline (and stops waiting when it's cancelled):
+        //
+
+        private void await(ETCallContext context)
+            throws ETSdkException
+        {
+            try {
+                Integer remaining = context != null ? context.getRemainingTime() : null;
+                if (remaining == null) {
+                    done.await();
+                } else if (!done.await(remaining, TimeUnit.MILLISECONDS)) {
+                    throw new ETSdkException("call timed out");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ETSdkException("interrupted waiting for identical call", ex);
+            }
+        }
+
+        private V getResult()
+            throws ETSdkException
+        {
+            if (exception instanceof ETSdkException) {
+                // a new exception, so the stack trace shows this caller
+                throw new ETSdkException(exception.getMessage(), exception);
+            }
+            if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            }
+            if (exception instanceof Error) {
+                throw (Error) exception;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A <code>Loader</code> makes the call.
+     */
+    interface Loader<V> {
+        /**
+         * @return  The result of the call
+         * @throws ETSdkException
+         */
+        V load()
+            throws ETSdkException;
+    }
+}
@@ -35,32 +35,52 @@
 package com.exacttarget.fuelsdk;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.namespace.QName;
 import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPFactory;
+import javax.xml.ws.WebServiceException;
+import javax.xml.ws.soap.SOAPFaultException;
 
 import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.endpoint.Client;
-import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.headers.Header;
-import org.apache.cxf.interceptor.LoggingInInterceptor;
-import org.apache.cxf.interceptor.LoggingOutInterceptor;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPException;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 
+import com.exacttarget.fuelsdk.internal.APIObject;
+import com.exacttarget.fuelsdk.internal.CreateRequest;
+import com.exacttarget.fuelsdk.internal.CreateResponse;
+import com.exacttarget.fuelsdk.internal.DeleteRequest;
+import com.exacttarget.fuelsdk.internal.DeleteResponse;
+import com.exacttarget.fuelsdk.internal.ObjectFactory;
 import com.exacttarget.fuelsdk.internal.PartnerAPI;
+import com.exacttarget.fuelsdk.internal.RetrieveRequestMsg;
+import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
 import com.exacttarget.fuelsdk.internal.Soap;
+import com.exacttarget.fuelsdk.internal.UpdateRequest;
+import com.exacttarget.fuelsdk.internal.UpdateResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * An <code>ETSoapConnection</code> represents an active
- * connection to the SOAP API.
+ * connection to the SOAP API. Calls are made through a
+ * pool of independently configured SOAP proxies, so the
+ * connection can be shared by many threads.
  */
 
 public class ETSoapConnection {
@@ -69,13 +89,38 @@ public class ETSoapConnection {
     private static final String WSSE_NAMESPACE_URI =
             "http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd";
 
+    private static final QName ACCESS_TOKEN_QNAME = new QName(null, "fueloauth");
+
+    private static final int DEFAULT_POOL_SIZE = 8;
+
+    //
+    // Parsing the WSDL and building the service model is by far
+    // the most expensive part of creating a connection, so it's
+    // done once per process and shared by all connections:
+    //
+
+    private static volatile PartnerAPI sharedService = null;
+    private static volatile JAXBContext sharedJAXBContext = null;
+
+    private ETClient client = null;
     private String endpoint = null;
 
+    private PartnerAPI service = null;
     private Soap soap = null;
     private Client soapClient = null;
     private SOAPFactory soapFactory = null;
     private SOAPElement accessTokenElement = null;
 
+    private Header securityHeader = null;
+    private volatile String accessToken = null;
+
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private Integer leaseTimeout = null;
+    private Semaphore leases = null;
+    private BlockingQueue<Soap> idleProxies = new LinkedBlockingQueue<Soap>();
+
+    private ETSoapWireLogger wireLogger = null;
+
     /** 
     * Class constructor, Initializes a new instance of the class.
      * @param client    The ETClient object
@@ -85,61 +130,33 @@ public class ETSoapConnection {
     public ETSoapConnection(ETClient client, String endpoint)
         throws ETSdkException
     {
+        this.client = client;
         this.endpoint = endpoint;
 
+        ETConfiguration configuration = client.getConfiguration();
+        Integer size = configuration.getInteger("soapPoolSize", null);
+        if (size != null && size > 0) {
+            poolSize = size;
+        }
+        leaseTimeout = configuration.getInteger("soapLeaseTimeout", null);
+        leases = new Semaphore(poolSize, true);
+
+        if (ETSoapWireLogger.isEnabled(configuration)) {
+            wireLogger = new ETSoapWireLogger(configuration);
+        }
+
         //
-        // Initialize the SOAP proxy:
+        // Initialize the SOAP proxy returned by getSoap()--pooled
+        // proxies are created from the same (shared) service as
+        // needed:
         //
 
+        service = getSharedService();
+
         try {
-            PartnerAPI service = new PartnerAPI();
-            soap = service.getSoap();
-            soapClient = ClientProxy.getClient(soap);
-            soapClient.getInInterceptors().add(new ClearAttachmentsOutInterceptor());
-            Endpoint soapEndpoint = soapClient.getEndpoint();
             soapFactory = SOAPFactory.newInstance();
-            soapClient.getRequestContext().put(Message.ENDPOINT_ADDRESS,
-                    endpoint);
-            HTTPConduit conduit = (HTTPConduit) soapClient.getConduit();
-            Integer cxfConnectTimeout = null;
-            Integer cxfReceiveTimeout = null;
-            try {
-                cxfConnectTimeout = new Integer(
-                        client.getConfiguration().get("cxfConnectTimeout"));
-            } catch (NumberFormatException ex) {
-                // Ignore--this just means the value specified in
-                // the fuelsdk.properties file is not an integer.
-            }
-            try {
-                cxfReceiveTimeout = new Integer(
-                        client.getConfiguration().get("cxfReceiveTimeout"));
-            } catch (NumberFormatException ex) {
-                // Ignore--this just means the value specified in
-                // the fuelsdk.properties file is not an integer.
-            }
-            HTTPClientPolicy clientPolicy = new HTTPClientPolicy();
-            if (cxfConnectTimeout != null) {
-                clientPolicy.setConnectionTimeout(cxfConnectTimeout);
-            }
-            if (cxfReceiveTimeout != null) {
-                clientPolicy.setReceiveTimeout(cxfReceiveTimeout);
-            }
-            conduit.setClient(clientPolicy);
-            if (client.getConfiguration().isTrue("cxfDisableCNCheck")) {
-                TLSClientParameters tlsClientParameters = new TLSClientParameters();
-                tlsClientParameters.setDisableCNCheck(true);
-                conduit.setTlsClientParameters(tlsClientParameters);
-            }
-            soapClient.getRequestContext().put(Message.ENCODING, "UTF-8");
-            
-            LoggingInInterceptor loggingInInterceptor =
-                    new LoggingInInterceptor();
-            loggingInInterceptor.setPrettyLogging(true);
-            LoggingOutInterceptor loggingOutInterceptor =
-                    new LoggingOutInterceptor();
-            loggingOutInterceptor.setPrettyLogging(true);
-            soapEndpoint.getInInterceptors().add(loggingInInterceptor);
-            soapEndpoint.getOutInterceptors().add(loggingOutInterceptor);
+            soap = createProxy();
+            soapClient = ClientProxy.getClient(soap);
         } catch (SOAPException ex) {
             throw new ETSdkException("could not initialize SOAP proxy", ex);
         }
@@ -180,8 +197,9 @@ public class ETSoapConnection {
                     new QName(WSSE_NAMESPACE_URI, "Security", "wsse"));
             securityElement.addChildElement(usernameTokenElement);
 
-            headers.add(new Header(new QName(WSSE_NAMESPACE_URI, "Security", "wsse"),
-                    securityElement));
+            securityHeader = new Header(new QName(WSSE_NAMESPACE_URI, "Security", "wsse"),
+                    securityElement);
+            headers.add(securityHeader);
 
             soapClient.getRequestContext().put(Header.HEADER_LIST, headers);
         } catch (SOAPException ex) {
@@ -204,13 +222,12 @@ public class ETSoapConnection {
         try {
             List<Header> headers = new ArrayList<Header>();
 
-            accessTokenElement =
-                    soapFactory.createElement(new QName(null, "fueloauth"));
+            accessTokenElement = soapFactory.createElement(ACCESS_TOKEN_QNAME);
             if (accessToken != null) {
                 setAccessToken(accessToken);
             }
 
-            headers.add(new Header(new QName(null, "fueloauth"), accessTokenElement));
+            headers.add(new Header(ACCESS_TOKEN_QNAME, accessTokenElement));
             
             soapClient.getRequestContext().put(Header.HEADER_LIST, headers);
         } catch (SOAPException ex) {
@@ -218,9 +235,107 @@ public class ETSoapConnection {
         }
     }
 
+    private static PartnerAPI getSharedService()
+        throws ETSdkException
+    {
+        PartnerAPI service = sharedService;
+        if (service == null) {
+            synchronized (ETSoapConnection.class) {
+                service = sharedService;
+                if (service == null) {
+                    long start = System.currentTimeMillis();
+                    try {
+                        service = new PartnerAPI();
+                    } catch (WebServiceException ex) {
+                        throw new ETSdkException("could not initialize SOAP service", ex);
+                    }
+                    logger.debug("initialized SOAP service model in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                    sharedService = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * @return  The JAXB context for the SOAP API types, shared
+     *          by all connections
+     * @throws ETSdkException
+     */
+    public static JAXBContext getJAXBContext()
+        throws ETSdkException
+    {
+        JAXBContext context = sharedJAXBContext;
+        if (context == null) {
+            synchronized (ETSoapConnection.class) {
+                context = sharedJAXBContext;
+                if (context == null) {
+                    long start = System.currentTimeMillis();
+                    try {
+                        context = JAXBContext.newInstance(ObjectFactory.class);
+                    } catch (JAXBException ex) {
+                        throw new ETSdkException("could not initialize JAXB context", ex);
+                    }
+                    logger.debug("initialized JAXB context in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                    sharedJAXBContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    private Soap createProxy()
+        throws ETSdkException
+    {
+        Soap proxy = null;
+        synchronized (service) {
+            proxy = service.getSoap();
+        }
+        Client proxyClient = ClientProxy.getClient(proxy);
+        proxyClient.getInInterceptors().add(new ClearAttachmentsOutInterceptor());
+        proxyClient.getInInterceptors().add(new ETRetrieveResultsInterceptor());
+        proxyClient.getRequestContext().put(Message.ENDPOINT_ADDRESS,
+                endpoint);
+        HTTPConduit conduit = (HTTPConduit) proxyClient.getConduit();
+        ETConfiguration configuration = client.getConfiguration();
+        Integer cxfConnectTimeout = configuration.getInteger("cxfConnectTimeout", null);
+        Integer cxfReceiveTimeout = configuration.getInteger("cxfReceiveTimeout", null);
+        HTTPClientPolicy clientPolicy = new HTTPClientPolicy();
+        if (cxfConnectTimeout != null) {
+            clientPolicy.setConnectionTimeout(cxfConnectTimeout);
+        }
+        if (cxfReceiveTimeout != null) {
+            clientPolicy.setReceiveTimeout(cxfReceiveTimeout);
+        }
+        conduit.setClient(clientPolicy);
+        if (configuration.isTrue("cxfDisableCNCheck")) {
+            TLSClientParameters tlsClientParameters = new TLSClientParameters();
+            tlsClientParameters.setDisableCNCheck(true);
+            conduit.setTlsClientParameters(tlsClientParameters);
+        }
+        proxyClient.getRequestContext().put(Message.ENCODING, "UTF-8");
+
+        //
+        // Envelopes are only copied for logging if soapWireLog
+        // is set (see ETSoapWireLogger):
+        //
+
+        if (wireLogger != null) {
+            wireLogger.install(proxyClient);
+        }
+        return proxy;
+    }
+
     /**
      * @return  The Soap object
+     * @deprecated
+     * The returned proxy is shared by all callers and its
+     * access token header is updated in place; use
+     * <code>lease()</code> and <code>release()</code>.
      */
+    @Deprecated
     public Soap getSoap() {
         return soap;
     }
@@ -229,6 +344,321 @@ public class ETSoapConnection {
         return endpoint;
     }
 
+    /**
+     * @return  The maximum number of pooled SOAP proxies
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Leases a SOAP proxy for exclusive use by the calling thread,
+     * blocking if all proxies are in use. The proxy carries the
+     * current authentication headers and must be returned with
+     * <code>release()</code> once the call has completed.
+     * @return  The Soap object
+     * @throws ETSdkException
+     */
+    public Soap lease()
+        throws ETSdkException
+    {
+        Soap proxy = acquire();
+        try {
+            setHeaders(proxy, currentAccessToken());
+        } catch (ETSdkException ex) {
+            release(proxy);
+            throw ex;
+        }
+        return proxy;
+    }
+
+    /**
+     * Returns a SOAP proxy obtained from <code>lease()</code>
+     * to the pool.
+     * @param proxy     The Soap object
+     */
+    public void release(Soap proxy) {
+        idleProxies.offer(proxy);
+        leases.release();
+    }
+
+    /**
+     * Performs a SOAP call on a leased proxy. If the call is
+     * rejected because the access token has expired, the token
+     * is refreshed and the call is retried once.
+     * @param call      The call to perform
+     * @return          The result of the call
+     * @throws ETSdkException
+     */
+    public <T> T call(Call<T> call)
+        throws ETSdkException
+    {
+        ETCallContext context = ETCallContext.current();
+        Soap proxy = acquire();
+        try {
+            if (context != null) {
+                setTimeouts(proxy, context.getRemainingTime());
+            }
+            String token = currentAccessToken();
+            setHeaders(proxy, token);
+            try {
+                return call.call(proxy);
+            } catch (WebServiceException ex) {
+                if (token == null || !isAccessTokenRejected(ex)) {
+                    throw ex;
+                }
+                logger.debug("access token rejected, refreshing");
+                String refreshedToken = client.refreshAccessToken(token);
+                if (refreshedToken == null || refreshedToken.equals(token)) {
+                    throw ex;
+                }
+                setHeaders(proxy, refreshedToken);
+                return call.call(proxy);
+            }
+        } finally {
+            if (context == null) {
+                release(proxy);
+            } else if (context.isCancelled()) {
+                // the call may have been left in any state
+                discard(proxy);
+            } else {
+                setTimeouts(proxy, null);
+                release(proxy);
+            }
+        }
+    }
+
+    /**
+     * Bounds the CXF timeouts of the next call on the proxy by the
+     * time remaining for an asynchronous call (or restores the
+     * configured timeouts).
+     * @param proxy             The Soap object
+     * @param remainingTime     The time remaining in milliseconds,
+     *                          or null to restore the timeouts
+     */
+    private void setTimeouts(Soap proxy, Integer remainingTime) {
+        Client proxyClient = ClientProxy.getClient(proxy);
+        Map<String, Object> requestContext = proxyClient.getRequestContext();
+        if (remainingTime == null) {
+            requestContext.remove(Message.CONNECTION_TIMEOUT);
+            requestContext.remove(Message.RECEIVE_TIMEOUT);
+            return;
+        }
+        HTTPClientPolicy clientPolicy = ((HTTPConduit) proxyClient.getConduit()).getClient();
+        requestContext.put(Message.CONNECTION_TIMEOUT,
+                min(clientPolicy.getConnectionTimeout(), remainingTime));
+        requestContext.put(Message.RECEIVE_TIMEOUT,
+                min(clientPolicy.getReceiveTimeout(), remainingTime));
+    }
+
+    private static long min(long timeout, long remainingTime) {
+        // a timeout of 0 means no timeout
+        return timeout > 0 ? Math.min(timeout, remainingTime) : remainingTime;
+    }
+
+    /**
+     * Drops a leased proxy (rather than returning it to the pool).
+     * @param proxy     The Soap object
+     */
+    private void discard(Soap proxy) {
+        logger.debug("discarding SOAP proxy of cancelled call");
+        leases.release();
+    }
+
+    /**
+     * @param retrieveRequestMsg    The retrieve request
+     * @return                      The retrieve response
+     * @throws ETSdkException
+     */
+    public RetrieveResponseMsg retrieve(final RetrieveRequestMsg retrieveRequestMsg)
+        throws ETSdkException
+    {
+        return call(new Call<RetrieveResponseMsg>() {
+            @Override
+            public RetrieveResponseMsg call(Soap soap) {
+                return soap.retrieve(retrieveRequestMsg);
+            }
+        });
+    }
+
+    /**
+     * Retrieves objects, handing each result to the handler as
+     * it is read rather than unmarshalling the whole page.
+     * @param   retrieveRequestMsg  The RetrieveRequestMsg
+     * @param   handler             The ResultHandler
+     * @return  The RetrieveResponseMsg (without results)
+     * @throws ETSdkException
+     */
+    public RetrieveResponseMsg retrieve(final RetrieveRequestMsg retrieveRequestMsg,
+                                        final ResultHandler handler)
+        throws ETSdkException
+    {
+        try {
+            return call(new Call<RetrieveResponseMsg>() {
+                @Override
+                public RetrieveResponseMsg call(Soap soap) {
+                    Map<String, Object> requestContext =
+                            ClientProxy.getClient(soap).getRequestContext();
+                    requestContext.put(ETRetrieveResultsInterceptor.RESULT_HANDLER, handler);
+                    try {
+                        return soap.retrieve(retrieveRequestMsg);
+                    } finally {
+                        requestContext.remove(ETRetrieveResultsInterceptor.RESULT_HANDLER);
+                    }
+                }
+            });
+        } catch (WebServiceException ex) {
+            //
+            // Rethrow exceptions thrown by the handler as is:
+            //
+
+            for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ETSdkException) {
+                    throw (ETSdkException) cause;
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @param createRequest         The create request
+     * @return                      The create response
+     * @throws ETSdkException
+     */
+    public CreateResponse create(final CreateRequest createRequest)
+        throws ETSdkException
+    {
+        return call(new Call<CreateResponse>() {
+            @Override
+            public CreateResponse call(Soap soap) {
+                return soap.create(createRequest);
+            }
+        });
+    }
+
+    /**
+     * @param updateRequest         The update request
+     * @return                      The update response
+     * @throws ETSdkException
+     */
+    public UpdateResponse update(final UpdateRequest updateRequest)
+        throws ETSdkException
+    {
+        return call(new Call<UpdateResponse>() {
+            @Override
+            public UpdateResponse call(Soap soap) {
+                return soap.update(updateRequest);
+            }
+        });
+    }
+
+    /**
+     * @param deleteRequest         The delete request
+     * @return                      The delete response
+     * @throws ETSdkException
+     */
+    public DeleteResponse delete(final DeleteRequest deleteRequest)
+        throws ETSdkException
+    {
+        return call(new Call<DeleteResponse>() {
+            @Override
+            public DeleteResponse call(Soap soap) {
+                return soap.delete(deleteRequest);
+            }
+        });
+    }
+
+    private Soap acquire()
+        throws ETSdkException
+    {
+        Integer timeout = leaseTimeout;
+        ETCallContext context = ETCallContext.current();
+        if (context != null) {
+            // don't wait past the deadline of an asynchronous call
+            Integer remainingTime = context.getRemainingTime();
+            if (remainingTime != null) {
+                timeout = timeout != null ? Math.min(timeout, remainingTime) : remainingTime;
+            }
+        }
+        try {
+            if (timeout == null) {
+                leases.acquire();
+            } else if (!leases.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new ETSdkException("timed out waiting for a SOAP proxy");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ETSdkException("interrupted waiting for a SOAP proxy", ex);
+        }
+        Soap proxy = idleProxies.poll();
+        if (proxy == null) {
+            try {
+                proxy = createProxy();
+            } catch (RuntimeException ex) {
+                leases.release();
+                throw new ETSdkException("could not initialize SOAP proxy", ex);
+            }
+            logger.debug("created SOAP proxy for " + endpoint);
+        }
+        return proxy;
+    }
+
+    private String currentAccessToken()
+        throws ETSdkException
+    {
+        if (accessTokenElement == null) {
+            return null;
+        }
+        if (client.getSoapConnection() == this) {
+            // makes sure an expired token is refreshed (and published
+            // back to this connection) before it's used
+            client.requestToken();
+        }
+        return accessToken;
+    }
+
+    private void setHeaders(Soap proxy, String token)
+        throws ETSdkException
+    {
+        Header header = securityHeader;
+        if (token != null) {
+            //
+            // Each call gets its own header element, so changing
+            // the token never touches a request in flight:
+            //
+
+            try {
+                SOAPElement element = soapFactory.createElement(ACCESS_TOKEN_QNAME);
+                element.addTextNode(token);
+                header = new Header(ACCESS_TOKEN_QNAME, element);
+            } catch (SOAPException ex) {
+                throw new ETSdkException("could not set access token", ex);
+            }
+        }
+        if (header != null) {
+            ClientProxy.getClient(proxy).getRequestContext().put(Header.HEADER_LIST,
+                    Collections.singletonList(header));
+        }
+    }
+
+    private static boolean isAccessTokenRejected(WebServiceException ex) {
+        if (ex.getCause() instanceof HTTPException) {
+            HTTPException httpException = (HTTPException) ex.getCause();
+            return httpException.getResponseCode() == 401;
+        }
+        if (ex instanceof SOAPFaultException) {
+            String faultString = ((SOAPFaultException) ex).getFault().getFaultString();
+            if (faultString != null) {
+                faultString = faultString.toLowerCase();
+                return faultString.contains("token")
+                        && (faultString.contains("expired")
+                            || faultString.contains("invalid"));
+            }
+        }
+        return false;
+    }
+
     /**
      * @param accessToken       The access token
      * @throws ETSdkException 
@@ -237,14 +667,34 @@ public class ETSoapConnection {
         throws ETSdkException
     {
         if (accessTokenElement != null) {
-            accessTokenElement.removeContents();
-            try {
-                accessTokenElement.addTextNode(accessToken);
-            } catch (SOAPException ex) {
-                throw new ETSdkException("could not set access token", ex);
+            this.accessToken = accessToken;
+            synchronized (accessTokenElement) {
+                accessTokenElement.removeContents();
+                try {
+                    accessTokenElement.addTextNode(accessToken);
+                } catch (SOAPException ex) {
+                    throw new ETSdkException("could not set access token", ex);
+                }
             }
             logger.debug("updated SOAP header with new access token "
                     + accessToken);
         }
     }
+
+    /**
+     * A <code>ResultHandler</code> receives the results of
+     * a retrieve one at a time as they are read.
+     */
+    public interface ResultHandler {
+        public void onResult(APIObject result)
+            throws ETSdkException;
+    }
+
+    /**
+     * A <code>Call</code> is a SOAP call performed on a
+     * leased proxy by <code>ETSoapConnection.call()</code>.
+     */
+    public interface Call<T> {
+        public T call(Soap soap);
+    }
 }
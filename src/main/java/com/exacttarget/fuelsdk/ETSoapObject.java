@@ -70,7 +70,6 @@ import com.exacttarget.fuelsdk.internal.RetrieveRequestMsg;
 import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
 import com.exacttarget.fuelsdk.internal.SimpleFilterPart;
 import com.exacttarget.fuelsdk.internal.SimpleOperators;
-import com.exacttarget.fuelsdk.internal.Soap;
 import com.exacttarget.fuelsdk.internal.Subscriber;
 import com.exacttarget.fuelsdk.internal.SubscriberStatus;
 import com.exacttarget.fuelsdk.internal.TriggeredSendDefinition;
@@ -79,12 +78,9 @@ import com.exacttarget.fuelsdk.internal.UpdateOptions;
 import com.exacttarget.fuelsdk.internal.UpdateRequest;
 import com.exacttarget.fuelsdk.internal.UpdateResponse;
 import com.exacttarget.fuelsdk.internal.UpdateResult;
-import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.beanutils.BeanUtilsBean;
 import org.apache.commons.beanutils.ConversionException;
 import org.apache.commons.beanutils.ConvertUtilsBean;
 import org.apache.commons.beanutils.Converter;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,12 +88,13 @@ import org.slf4j.LoggerFactory;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementRef;
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An <code>ETSoapObject</code> represents an object
@@ -113,12 +110,23 @@ public abstract class ETSoapObject extends ETApiObject {
      */
     public final static int PAGE_SIZE = 2500;
 
+    //
+    // Converters used when mapping between external and internal
+    // types. They're registered once, in a registry owned by the
+    // SDK rather than in the application's global BeanUtils one,
+    // and never modified afterwards:
+    //
+
+    private static final ConvertUtilsBean defaultConverters = new ConvertUtilsBean();
+    private static final Map<Class<?>, Converter> converters = registerConverters();
+
+    private static final ConcurrentMap<Class<?>, TypeMetadata> typeMetadata =
+            new ConcurrentHashMap<Class<?>, TypeMetadata>();
+
     /**
     * Class constructor, Initializes a new instance of the class.
     */
-    public ETSoapObject() {
-        registerConverters();
-    }
+    public ETSoapObject() {}
 
     /**
      *
@@ -232,23 +240,183 @@ public abstract class ETSoapObject extends ETApiObject {
                                                                      Class<T> type)
         throws ETSdkException
     {
-        //
-        // Get handle to the SOAP connection:
-        //
+        RetrieveResponseMsg retrieveResponseMsg = retrieveInternal(client,
+                                                                   soapObjectName,
+                                                                   filter,
+                                                                   pageSize,
+                                                                   continueRequest,
+                                                                   type);
+        return toResponse(client, retrieveResponseMsg, type);
+    }
 
-        ETSoapConnection connection = client.getSoapConnection();
+    /**
+     * Retrieves one page of objects, handing each object to the
+     * callback as soon as it has been read off the response, so
+     * only one object is in memory at a time. The ETResponse
+     * returned has the status and request ID of the page (pass
+     * the request ID as continueRequest to retrieve the next
+     * page) but no results.
+     * @param <T>           The type which extends from ETSoapObject
+     * @param client        The ETClient object
+     * @param type          The class type to retrieve
+     * @param pageSize      The page size
+     * @param continueRequest The continue request
+     * @param filter        The ETFilter object
+     * @param callback      The ObjectCallback to receive the objects
+     * @return              The ETResponse object of type T (without results)
+     * @throws ETSdkException
+     */
+    public static <T extends ETSoapObject> ETResponse<T> retrieve(ETClient client,
+                                                                  Class<T> type,
+                                                                  Integer pageSize,
+                                                                  String continueRequest,
+                                                                  ETFilter filter,
+                                                                  ObjectCallback<? super T> callback)
+        throws ETSdkException
+    {
+        if (filter.getOrderBy().size() != 0) {
+            throw new ETSdkException("order by argument not supported on this object type");
+        }
 
+        return retrieve(client, null, filter, pageSize, continueRequest, type, callback);
+    }
+
+    /**
+     *
+     * @param <T>           The type which extends from ETSoapObject
+     * @param client        The ETClient object
+     * @param soapObjectName The object name to retrieve for SOAP
+     * @param filter        The ETFilter object
+     * @param pageSize      The page size
+     * @param continueRequest The continue request
+     * @param type          The class type to retrieve
+     * @param callback      The ObjectCallback to receive the objects
+     * @return              The ETResponse object of type T (without results)
+     * @throws ETSdkException
+     */
+    protected static <T extends ETSoapObject> ETResponse<T> retrieve(final ETClient client,
+                                                                     String soapObjectName,
+                                                                     ETFilter filter,
+                                                                     Integer pageSize,
+                                                                     String continueRequest,
+                                                                     final Class<T> type,
+                                                                     final ObjectCallback<? super T> callback)
+        throws ETSdkException
+    {
+        RetrieveRequestMsg retrieveRequestMsg = createRetrieveRequest(soapObjectName,
+                                                                      filter,
+                                                                      pageSize,
+                                                                      continueRequest,
+                                                                      type);
+        return retrieve(client, retrieveRequestMsg, type, callback);
+    }
+
+    /**
+     * Performs a prebuilt SOAP retrieve, handing each object to
+     * the callback as soon as it has been read off the response.
+     * @param <T>           The type which extends from ETSoapObject
+     * @param client        The ETClient object
+     * @param retrieveRequestMsg The RetrieveRequestMsg object
+     * @param type          The class type to retrieve
+     * @param callback      The ObjectCallback to receive the objects
+     * @return              The ETResponse object of type T (without results)
+     * @throws ETSdkException
+     */
+    protected static <T extends ETSoapObject> ETResponse<T> retrieve(final ETClient client,
+                                                                     RetrieveRequestMsg retrieveRequestMsg,
+                                                                     final Class<T> type,
+                                                                     final ObjectCallback<? super T> callback)
+        throws ETSdkException
+    {
+        logger.trace("calling soap.retrieve (streaming)...");
+
+        RetrieveResponseMsg retrieveResponseMsg =
+                client.getSoapConnection().retrieve(retrieveRequestMsg,
+                                                    new ETSoapConnection.ResultHandler() {
+            @Override
+            public void onResult(APIObject internalObject)
+                throws ETSdkException
+            {
+                callback.onObject(toExternal(client, internalObject, type));
+            }
+        });
+
+        // there are no results to convert
+        return toResponse(client, retrieveResponseMsg, type);
+    }
+
+    /**
+     * Performs the SOAP retrieve but leaves the results in
+     * their internal representation.
+     * @param client        The ETClient object
+     * @param soapObjectName The object name to retrieve for SOAP
+     * @param filter        The ETFilter object
+     * @param pageSize      The page size
+     * @param continueRequest The continue request
+     * @param type          The class type to retrieve
+     * @return              The RetrieveResponseMsg object
+     * @throws ETSdkException
+     */
+    protected static RetrieveResponseMsg retrieveInternal(ETClient client,
+                                                          String soapObjectName,
+                                                          ETFilter filter,
+                                                          Integer pageSize,
+                                                          String continueRequest,
+                                                          Class<? extends ETSoapObject> type)
+        throws ETSdkException
+    {
+        RetrieveRequestMsg retrieveRequestMsg = createRetrieveRequest(soapObjectName,
+                                                                      filter,
+                                                                      pageSize,
+                                                                      continueRequest,
+                                                                      type);
+        return retrieveInternal(client, retrieveRequestMsg);
+    }
+
+    /**
+     * Performs a prebuilt SOAP retrieve but leaves the results
+     * in their internal representation.
+     * @param client        The ETClient object
+     * @param retrieveRequestMsg The RetrieveRequestMsg object
+     * @return              The RetrieveResponseMsg object
+     * @throws ETSdkException
+     */
+    protected static RetrieveResponseMsg retrieveInternal(ETClient client,
+                                                          RetrieveRequestMsg retrieveRequestMsg)
+        throws ETSdkException
+    {
+        logger.trace("calling soap.retrieve...");
+
+        RetrieveResponseMsg retrieveResponseMsg =
+                client.getSoapConnection().retrieve(retrieveRequestMsg);
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("RetrieveResponseMsg:");
+            logger.trace("  requestId = " + retrieveResponseMsg.getRequestID());
+            logger.trace("  overallStatus = " + retrieveResponseMsg.getOverallStatus());
+            logger.trace("  results = {");
+            for (APIObject result : retrieveResponseMsg.getResults()) {
+                logger.trace("    " + result);
+            }
+            logger.trace("  }");
+        }
+
+        return retrieveResponseMsg;
+    }
+
+    private static RetrieveRequestMsg createRetrieveRequest(String soapObjectName,
+                                                            ETFilter filter,
+                                                            Integer pageSize,
+                                                            String continueRequest,
+                                                            Class<? extends ETSoapObject> type)
+        throws ETSdkException
+    {
         //
-        // Read internal type from the SoapObject annotation:
+        // Look up the internal type and properties (cached per type):
         //
 
-        Class<T> externalType = type; // for code readability
-
-        SoapObject internalTypeAnnotation
-            = externalType.getAnnotation(SoapObject.class);
-        assert internalTypeAnnotation != null;
-        Class<? extends APIObject> internalType = internalTypeAnnotation.internalType();
-        assert internalType != null;
+        TypeMetadata metadata = getTypeMetadata(type);
+        Class<? extends APIObject> internalType = metadata.getInternalType();
 
         ETExpression expression = filter.getExpression();
 
@@ -268,32 +436,23 @@ public abstract class ETSoapObject extends ETApiObject {
 
             for (String externalProperty : externalProperties) {
                 String internalProperty =
-                        getInternalProperty(externalType, externalProperty);
+                        metadata.getInternalProperty(externalProperty);
                 assert internalProperty != null;
                 internalProperties.add(internalProperty);
             }
         } else {
             //
-            // No properties were explicitly requested:
+            // No properties were explicitly requested (unretrievable
+            // properties have already been removed):
             //
 
-            internalProperties = getInternalProperties(externalType);
-
-            //
-            // Remove properties that are unretrievable:
-            //
-
-            for (String property : internalTypeAnnotation.unretrievable()) {
-                internalProperties.remove(property);
-            }
+            internalProperties = metadata.getRetrievableProperties();
         }
 
         //
         // Perform the SOAP retrieve:
         //
 
-        Soap soap = connection.getSoap();
-
         RetrieveRequest retrieveRequest = new RetrieveRequest();
 
         if (continueRequest == null) {
@@ -308,19 +467,11 @@ public abstract class ETSoapObject extends ETApiObject {
 
             if (expression.getOperator() != null) {
                 //
-                // Convert the property names to their internal counterparts:
+                // Convert the property names to their internal
+                // counterparts (in a copy--the filter may be shared):
                 //
 
-                String property = expression.getProperty();
-                if (property != null) {
-                    expression.setProperty(getInternalProperty(type, property));
-                }
-                for (ETExpression subexpression : expression.getSubexpressions()) {
-                    String p = subexpression.getProperty();
-                    if (p != null) {
-                        subexpression.setProperty(getInternalProperty(type, p));
-                    }
-                }
+                expression = toInternalExpression(expression, metadata);
 
                 retrieveRequest.setFilter(toFilterPart(expression));
             }
@@ -366,23 +517,26 @@ public abstract class ETSoapObject extends ETApiObject {
             }
         }
 
-        logger.trace("calling soap.retrieve...");
-
         RetrieveRequestMsg retrieveRequestMsg = new RetrieveRequestMsg();
         retrieveRequestMsg.setRetrieveRequest(retrieveRequest);
+        return retrieveRequestMsg;
+    }
 
-        RetrieveResponseMsg retrieveResponseMsg = soap.retrieve(retrieveRequestMsg);
-
-        if (logger.isTraceEnabled()) {
-            logger.trace("RetrieveResponseMsg:");
-            logger.trace("  requestId = " + retrieveResponseMsg.getRequestID());
-            logger.trace("  overallStatus = " + retrieveResponseMsg.getOverallStatus());
-            logger.trace("  results = {");
-            for (APIObject result : retrieveResponseMsg.getResults()) {
-                logger.trace("    " + result);
-            }
-            logger.trace("  }");
-        }
+    /**
+     * Converts the internal objects of a retrieve response.
+     * @param <T>           The type which extends from ETSoapObject
+     * @param client        The ETClient object
+     * @param retrieveResponseMsg The RetrieveResponseMsg object
+     * @param type          The class type to convert to
+     * @return              The ETResponse object of type T which extends from ETSoapObject
+     * @throws ETSdkException
+     */
+    protected static <T extends ETSoapObject> ETResponse<T> toResponse(ETClient client,
+                                                                       RetrieveResponseMsg retrieveResponseMsg,
+                                                                       Class<T> type)
+        throws ETSdkException
+    {
+        Class<T> externalType = type; // for code readability
 
         ETResponse<T> response = new ETResponse<T>();
         response.setRequestId(retrieveResponseMsg.getRequestID());
@@ -394,32 +548,12 @@ public abstract class ETSoapObject extends ETApiObject {
         response.setResponseCode(retrieveResponseMsg.getOverallStatus());
         response.setResponseMessage(retrieveResponseMsg.getOverallStatus());
         for (APIObject internalObject : retrieveResponseMsg.getResults()) {
-            //
-            // Allocate a new (external) object:
-            //
-
-            T externalObject = null;
-            try {
-                externalObject = externalType.newInstance();
-            } catch (Exception ex) {
-                throw new ETSdkException("could not instantiate "
-                        + externalType.getName(), ex);
-            }
-
-            externalObject.setClient(client);
-
-            //
-            // Convert from internal representation:
-            //
-
-            externalObject.fromInternal(internalObject);
-
             //
             // Add result to the list of results:
             //
 
             ETResult<T> result = new ETResult<T>();
-            result.setObject(externalObject);
+            result.setObject(toExternal(client, internalObject, externalType));
             response.addResult(result);
         }
 
@@ -429,6 +563,34 @@ public abstract class ETSoapObject extends ETApiObject {
         return response;
     }
 
+    private static <T extends ETSoapObject> T toExternal(ETClient client,
+                                                         APIObject internalObject,
+                                                         Class<T> externalType)
+        throws ETSdkException
+    {
+        //
+        // Allocate a new (external) object:
+        //
+
+        T externalObject = null;
+        try {
+            externalObject = externalType.newInstance();
+        } catch (Exception ex) {
+            throw new ETSdkException("could not instantiate "
+                    + externalType.getName(), ex);
+        }
+
+        externalObject.setClient(client);
+
+        //
+        // Convert from internal representation:
+        //
+
+        externalObject.fromInternal(internalObject);
+
+        return externalObject;
+    }
+
     /**
      * @param <T>                   The type which extends from ETSoapObject
      * @param client                The ETClient object
@@ -457,8 +619,6 @@ public abstract class ETSoapObject extends ETApiObject {
         // Perform the SOAP create:
         //
 
-        Soap soap = connection.getSoap();
-
         CreateRequest createRequest = new CreateRequest();
         createRequest.setOptions(new CreateOptions());
         for (T object : objects) {
@@ -477,7 +637,7 @@ public abstract class ETSoapObject extends ETApiObject {
 
         logger.trace("calling soap.create...");
 
-        CreateResponse createResponse = soap.create(createRequest);
+        CreateResponse createResponse = connection.create(createRequest);
 
         if (logger.isTraceEnabled()) {
             logger.trace("CreateResponse:");
@@ -596,8 +756,6 @@ public abstract class ETSoapObject extends ETApiObject {
         // Perform the SOAP update:
         //
 
-        Soap soap = connection.getSoap();
-
         UpdateRequest updateRequest = new UpdateRequest();
         updateRequest.setOptions(new UpdateOptions());
         for (T object : objects) {
@@ -616,7 +774,7 @@ public abstract class ETSoapObject extends ETApiObject {
 
         logger.trace("calling soap.update...");
 
-        UpdateResponse updateResponse = soap.update(updateRequest);
+        UpdateResponse updateResponse = connection.update(updateRequest);
 
         if (logger.isTraceEnabled()) {
             logger.trace("UpdateResponse:");
@@ -761,8 +919,6 @@ public abstract class ETSoapObject extends ETApiObject {
         // Perform the SOAP delete:
         //
 
-        Soap soap = connection.getSoap();
-
         DeleteRequest deleteRequest = new DeleteRequest();
         deleteRequest.setOptions(new DeleteOptions());
         deleteRequest.getObjects().addAll(objects);
@@ -778,7 +934,7 @@ public abstract class ETSoapObject extends ETApiObject {
 
         logger.trace("calling soap.delete...");
 
-        DeleteResponse deleteResponse = soap.delete(deleteRequest);
+        DeleteResponse deleteResponse = connection.delete(deleteRequest);
 
         if (logger.isTraceEnabled()) {
             logger.trace("DeleteResponse:");
@@ -815,111 +971,130 @@ public abstract class ETSoapObject extends ETApiObject {
         return response;
     }
 
-    private void registerConverters() {
+    private static Map<Class<?>, Converter> registerConverters() {
         //
         // Register converters:
         //
 
-        ConvertUtilsBean convertUtils = BeanUtilsBean.getInstance().getConvertUtils();
+        Map<Class<?>, Converter> registry = new HashMap<Class<?>, Converter>();
+
+        Converter externalObjectConverter = new ExternalObjectConverter();
+        Converter internalObjectConverter = new InternalObjectConverter();
+        Converter dataExtensionRowConverter = new DataExtensionRowConverter();
+        Converter enumConverter = new EnumConverter();
 
         // ETDataExtension
-        convertUtils.register(new ExternalObjectConverter(),
-                ETDataExtension.class);
-        convertUtils.register(new InternalObjectConverter(),
-                DataExtension.class);
+        registry.put(ETDataExtension.class,
+                externalObjectConverter);
+        registry.put(DataExtension.class,
+                internalObjectConverter);
 
         // ETDataExtensionColumn
-        convertUtils.register(new ExternalObjectConverter(),
-                ETDataExtensionColumn.class);
-        convertUtils.register(new InternalObjectConverter(),
-                DataExtensionField.class);
+        registry.put(ETDataExtensionColumn.class,
+                externalObjectConverter);
+        registry.put(DataExtensionField.class,
+                internalObjectConverter);
 
         // ETDataExtensionColumnType
-        convertUtils.register(new EnumConverter(),
-                ETDataExtensionColumn.Type.class);
-        convertUtils.register(new EnumConverter(),
-                DataExtensionFieldType.class);
+        registry.put(ETDataExtensionColumn.Type.class,
+                enumConverter);
+        registry.put(DataExtensionFieldType.class,
+                enumConverter);
 
         // ETDataExtensionRow
-        convertUtils.register(new ExternalObjectConverter(),
-                ETDataExtensionRow.class);
-        convertUtils.register(new InternalObjectConverter(),
-                DataExtensionObject.class);
+        registry.put(ETDataExtensionRow.class,
+                externalObjectConverter);
+        registry.put(DataExtensionObject.class,
+                internalObjectConverter);
         // data extension row: internal to external
-        convertUtils.register(new DataExtensionRowConverter(),
-                Map.class);
+        registry.put(Map.class,
+                dataExtensionRowConverter);
         // data extension row: external to internal
-        convertUtils.register(new DataExtensionRowConverter(),
-                ObjectExtension.Properties.class);
+        registry.put(ObjectExtension.Properties.class,
+                dataExtensionRowConverter);
 
         // ETEmail
-        convertUtils.register(new ExternalObjectConverter(),
-                ETEmail.class);
-        convertUtils.register(new InternalObjectConverter(),
-                Email.class);
+        registry.put(ETEmail.class,
+                externalObjectConverter);
+        registry.put(Email.class,
+                internalObjectConverter);
 
         // ETEmail.Type
-        convertUtils.register(new EnumConverter(),
-                ETEmail.Type.class);
-        convertUtils.register(new EnumConverter(),
-                EmailType.class);
+        registry.put(ETEmail.Type.class,
+                enumConverter);
+        registry.put(EmailType.class,
+                enumConverter);
 
         // ETFolder
-        convertUtils.register(new ExternalObjectConverter(),
-                ETFolder.class);
-        convertUtils.register(new InternalObjectConverter(),
-                DataFolder.class);
+        registry.put(ETFolder.class,
+                externalObjectConverter);
+        registry.put(DataFolder.class,
+                internalObjectConverter);
 
         // ETList
-        convertUtils.register(new ExternalObjectConverter(),
-                ETList.class);
-        convertUtils.register(new InternalObjectConverter(),
-                com.exacttarget.fuelsdk.internal.List.class);
+        registry.put(ETList.class,
+                externalObjectConverter);
+        registry.put(com.exacttarget.fuelsdk.internal.List.class,
+                internalObjectConverter);
 
         // ETList.Classification
-        convertUtils.register(new EnumConverter(),
-                ETList.Classification.class);
-        convertUtils.register(new EnumConverter(),
-                ListClassificationEnum.class);
+        registry.put(ETList.Classification.class,
+                enumConverter);
+        registry.put(ListClassificationEnum.class,
+                enumConverter);
 
         // ETList.Type
-        convertUtils.register(new EnumConverter(),
-                ETList.Type.class);
-        convertUtils.register(new EnumConverter(),
-                ListTypeEnum.class);
+        registry.put(ETList.Type.class,
+                enumConverter);
+        registry.put(ListTypeEnum.class,
+                enumConverter);
 
         // ETSubscriber
-        convertUtils.register(new ExternalObjectConverter(),
-                ETSubscriber.class);
-        convertUtils.register(new InternalObjectConverter(),
-                Subscriber.class);
+        registry.put(ETSubscriber.class,
+                externalObjectConverter);
+        registry.put(Subscriber.class,
+                internalObjectConverter);
 
         // ETSubscriber.Attribute
-        convertUtils.register(new EnumConverter(),
-                ETSubscriber.Status.class);
-        convertUtils.register(new EnumConverter(),
-                Attribute.class);
+        registry.put(ETSubscriber.Status.class,
+                enumConverter);
+        registry.put(Attribute.class,
+                enumConverter);
 
         // ETSubscriber.Status
-        convertUtils.register(new EnumConverter(),
-                ETSubscriber.Status.class);
-        convertUtils.register(new EnumConverter(),
-                SubscriberStatus.class);
+        registry.put(ETSubscriber.Status.class,
+                enumConverter);
+        registry.put(SubscriberStatus.class,
+                enumConverter);
 
         // ETTriggeredSend
-        convertUtils.register(new EnumConverter(),
-                ETTriggeredEmail.class);
-        convertUtils.register(new EnumConverter(),
-                TriggeredSendDefinition.class);
+        registry.put(ETTriggeredEmail.class,
+                enumConverter);
+        registry.put(TriggeredSendDefinition.class,
+                enumConverter);
 
         // ETTriggeredSend.Status
-        convertUtils.register(new EnumConverter(),
-                ETTriggeredEmail.Status.class);
-        convertUtils.register(new EnumConverter(),
-                TriggeredSendStatusEnum.class);
+        registry.put(ETTriggeredEmail.Status.class,
+                enumConverter);
+        registry.put(TriggeredSendStatusEnum.class,
+                enumConverter);
+
+        return Collections.unmodifiableMap(registry);
     }
 
-    public class ExternalObjectConverter implements Converter {
+    /**
+     * @param type      The target type
+     * @return          The converter to the target type, or null if there is none
+     */
+    static Converter lookupConverter(Class<?> type) {
+        Converter converter = converters.get(type);
+        if (converter == null) {
+            converter = defaultConverters.lookup(type);
+        }
+        return converter;
+    }
+
+    public static class ExternalObjectConverter implements Converter {
         @SuppressWarnings("rawtypes")
         /**
          * @param type      The class type to convert
@@ -942,7 +1117,7 @@ public abstract class ETSoapObject extends ETApiObject {
         }
     }
 
-    public class InternalObjectConverter implements Converter {
+    public static class InternalObjectConverter implements Converter {
         @SuppressWarnings("rawtypes")
         /**
          * @param type      The class type to convert
@@ -960,7 +1135,7 @@ public abstract class ETSoapObject extends ETApiObject {
         }
     }
 
-    public class DataExtensionRowConverter implements Converter {
+    public static class DataExtensionRowConverter implements Converter {
         @SuppressWarnings({ "rawtypes", "unchecked" })
         /**
          * @param type      The class type to convert
@@ -993,7 +1168,7 @@ public abstract class ETSoapObject extends ETApiObject {
         }
     }
 
-    public class EnumConverter implements Converter {
+    public static class EnumConverter implements Converter {
         @SuppressWarnings({ "rawtypes", "unchecked" })
         /**
          * @param type      The class type to convert
@@ -1026,133 +1201,8 @@ public abstract class ETSoapObject extends ETApiObject {
         logger.trace("                    to external type "
                 + externalTypeName);
 
-        for (Field externalField : getAllFields(externalType)) {
-            //
-            // Skip this field if it doesn't have the @ExternalName
-            // annotation (it's an internal field):
-            //
-
-            ExternalName externalName =
-                    externalField.getAnnotation(ExternalName.class);
-            if (externalName == null) {
-                continue;
-            }
-
-            String externalFieldName = externalField.getName();
-            String internalFieldName = null;
-
-            InternalName internalName =
-                    externalField.getAnnotation(InternalName.class);
-
-            if (internalName != null) {
-                internalFieldName = internalName.value();
-            } else {
-                // internal name is the same as external name
-                internalFieldName = externalFieldName;
-            }
-
-            Object internalFieldValue = null;
-            try {
-                internalFieldValue =
-                        PropertyUtils.getProperty(internalObject,
-                                                  internalFieldName);
-            } catch (Exception ex) {
-                throw new ETSdkException("could not get property \""
-                        + internalFieldName
-                        + "\" of object "
-                        + internalObject,
-                        ex);
-            }
-
-            if (internalFieldValue == null) {
-                continue;
-            }
-
-            if (internalFieldValue instanceof List) {
-                externalField.setAccessible(true);
-
-                List<ETSoapObject> externalList = new ArrayList<ETSoapObject>();
-                @SuppressWarnings("unchecked")
-                List<APIObject> internalList
-                    = (List<APIObject>) internalFieldValue;
-
-                Type fieldType = externalField.getGenericType();
-                assert fieldType instanceof ParameterizedType;
-                ParameterizedType parameterizedType
-                    = (ParameterizedType) fieldType;
-                assert parameterizedType.getActualTypeArguments().length == 1;
-                Class<?> externalItemType
-                    = (Class<?>) parameterizedType.getActualTypeArguments()[0];
-
-                for (APIObject internalItem : internalList) {
-                    ETSoapObject externalItem = null;
-                    try {
-                        externalItem = (ETSoapObject) externalItemType.newInstance();
-                    } catch (Exception ex) {
-                        throw new ETSdkException("could not instantiate "
-                                + externalItemType.getName(), ex);
-                    }
-                    externalList.add(externalItem.fromInternal(internalItem));
-                }
-
-                try {
-                    externalField.set(externalObject, externalList);
-                } catch (Exception ex) {
-                    throw new ETSdkException("could not set field \""
-                            + externalFieldName
-                            + "\" of object "
-                            + externalObject,
-                            ex);
-                }
-
-                continue;
-            }
-
-            try {
-                BeanUtils.setProperty(externalObject,
-                                      externalFieldName,
-                                      internalFieldValue);
-            } catch (Exception ex) {
-                throw new ETSdkException("could not set property \""
-                        + externalFieldName
-                        + "\" of object "
-                        + externalObject,
-                        ex);
-            }
-
-            if (logger.isTraceEnabled()) {
-                Field internalField = getField(internalType,
-                                               internalFieldName);
-
-                Object externalFieldValue = null;
-                try {
-                    externalFieldValue =
-                            PropertyUtils.getProperty(externalObject,
-                                                      externalFieldName);
-                } catch (Exception ex) {
-                    throw new ETSdkException("could not get property \""
-                            + externalFieldName
-                            + "\" of object "
-                            + externalObject,
-                            ex);
-                }
-
-                logger.trace("  converted field "
-                        + internalTypeName + "." + internalFieldName
-                        + " (type="
-                        + internalField.getType().getSimpleName()
-                        + ", value="
-                        + internalFieldValue
-                        + ")");
-                logger.trace("         to field "
-                        + externalTypeName + "." + externalFieldName
-                        + " (type="
-                        + externalField.getType().getSimpleName()
-                        + ", value="
-                        + externalFieldValue
-                        + ")");
-            }
-        }
+        ETSoapObjectMapping.getMapping(externalType, internalType)
+                .fromInternal(internalObject, externalObject);
 
         return externalObject;
     }
@@ -1173,11 +1223,8 @@ public abstract class ETSoapObject extends ETApiObject {
         // Use the @SoapObject annotation to determine internalType:
         //
 
-        SoapObject internalTypeAnnotation
-            = externalType.getAnnotation(SoapObject.class);
-        assert internalTypeAnnotation != null;
-        Class<? extends APIObject> internalType = internalTypeAnnotation.internalType();
-        assert internalType != null;
+        Class<? extends APIObject> internalType =
+                getTypeMetadata(externalType).getInternalType();
 
         String externalTypeName = externalType.getSimpleName();
         String internalTypeName = internalType.getSimpleName();
@@ -1195,142 +1242,8 @@ public abstract class ETSoapObject extends ETApiObject {
                     + internalType.getName(), ex);
         }
 
-        for (Field externalField : getAllFields(externalType)) {
-            //
-            // Skip this field if it doesn't have the @ExternalName
-            // annotation (it's an internal field):
-            //
-
-            ExternalName externalName =
-                    externalField.getAnnotation(ExternalName.class);
-            if (externalName == null) {
-                continue;
-            }
-
-            String externalFieldName = externalField.getName();
-            String internalFieldName = null;
-
-            InternalName internalName =
-                    externalField.getAnnotation(InternalName.class);
-
-            if (internalName != null) {
-                internalFieldName = internalName.value();
-            } else {
-                // internal name is the same as external name
-                internalFieldName = externalFieldName;
-            }
-
-            Object externalFieldValue = null;
-            try {
-                externalFieldValue =
-                        PropertyUtils.getProperty(externalObject,
-                                                  externalFieldName);
-            } catch (Exception ex) {
-                throw new ETSdkException("could not get property \""
-                        + externalFieldName
-                        + "\" of object "
-                        + externalObject,
-                        ex);
-            }
-
-            if (externalFieldValue == null) {
-                continue;
-            }
-
-            if (externalFieldValue instanceof List) {
-                Field internalField = getField(internalType,
-                                               internalFieldName);
-
-                internalField.setAccessible(true);
-
-                List<APIObject> internalList = new ArrayList<APIObject>();
-                @SuppressWarnings("unchecked")
-                List<ETSoapObject> externalList
-                    = (List<ETSoapObject>) externalFieldValue;
-
-                for (ETSoapObject externalItem : externalList) {
-                    internalList.add(externalItem.toInternal());
-                }
-
-                if (internalFieldName.equals("fields")) {
-                    //
-                    // This list contains data extension columns:
-                    //
-
-                    DataExtension.Fields fields = new DataExtension.Fields();
-                    for (APIObject field : internalList) {
-                        fields.getField().add((DataExtensionField) field);
-                    }
-                    try {
-                        internalField.set(internalObject, fields);
-                    } catch (Exception ex) {
-                        throw new ETSdkException("could not set field \""
-                                + internalFieldName
-                                + "\" of object "
-                                + internalObject,
-                                ex);
-                    }
-                } else {
-                    try {
-                        internalField.set(internalObject, internalList);
-                    } catch (Exception ex) {
-                        throw new ETSdkException("could not set field \""
-                                + internalFieldName
-                                + "\" of object "
-                                + internalObject,
-                                ex);
-                    }
-                }
-
-                continue;
-            }
-
-            try {
-                BeanUtils.setProperty(internalObject,
-                                      internalFieldName,
-                                      externalFieldValue);
-            } catch (Exception ex) {
-                //ex.printStackTrace();
-                throw new ETSdkException("could not set property \""
-                        + internalFieldName
-                        + "\" of object "
-                        + internalObject,
-                        ex);
-            }
-
-            if (logger.isTraceEnabled()) {
-                Field internalField = getField(internalType,
-                                               internalFieldName);
-
-                Object internalFieldValue = null;
-                try {
-                    internalFieldValue =
-                            PropertyUtils.getProperty(internalObject,
-                                                      internalFieldName);
-                } catch (Exception ex) {
-                    throw new ETSdkException("could not get property \""
-                            + internalFieldName
-                            + "\" of object "
-                            + internalObject,
-                            ex);
-                }
-
-                logger.trace("  converted field "
-                        + externalTypeName + "." + externalFieldName
-                        + " (type="
-                        + externalField.getType().getSimpleName()
-                        + ", value="
-                        + externalFieldValue
-                        + ")");
-                logger.trace("         to field "
-                        + internalTypeName + "." + internalFieldName
-                        + " (type="
-                        + internalField.getType().getSimpleName()
-                        + ", value="
-                        + internalFieldValue
-                        + ")");
-            }
-        }
+        ETSoapObjectMapping.getMapping(externalType, internalType)
+                .toInternal(externalObject, internalObject);
 
         return internalObject;
     }
@@ -1338,6 +1251,13 @@ public abstract class ETSoapObject extends ETApiObject {
     protected static String getInternalProperty(Class<? extends ETSoapObject> type,
                                                 String name)
         throws ETSdkException
+    {
+        return getTypeMetadata(type).getInternalProperty(name);
+    }
+
+    private static String resolveInternalProperty(Class<? extends ETSoapObject> type,
+                                                  String name)
+        throws ETSdkException
     {
         String internalProperty = null;
 
@@ -1409,50 +1329,145 @@ public abstract class ETSoapObject extends ETApiObject {
     protected static List<String> getInternalProperties(Class<? extends ETSoapObject> type)
         throws ETSdkException
     {
-        List<String> internalProperties = new ArrayList<String>();
+        return new ArrayList<String>(getTypeMetadata(type).getProperties());
+    }
 
-        Class<? extends ETSoapObject> externalType = type; // for code readability
+    /**
+     * @param type      The ETSoapObject type
+     * @return          The (cached) metadata of the type
+     * @throws ETSdkException
+     */
+    protected static TypeMetadata getTypeMetadata(Class<? extends ETSoapObject> type)
+        throws ETSdkException
+    {
+        TypeMetadata metadata = typeMetadata.get(type);
+        if (metadata == null) {
+            metadata = new TypeMetadata(type);
+            TypeMetadata existing = typeMetadata.putIfAbsent(type, metadata);
+            if (existing != null) {
+                metadata = existing;
+            }
+        }
+        return metadata;
+    }
 
-        //
-        // Use the @SoapObject annotation to determine internalType:
-        //
+    /**
+     * A <code>TypeMetadata</code> object holds what retrieves
+     * need to know about an <code>ETSoapObject</code> type,
+     * resolved from its annotations (and those of the CXF
+     * generated internal type) once per type.
+     */
+    protected static class TypeMetadata {
+        private final Class<? extends ETSoapObject> type;
+        private final Class<? extends APIObject> internalType;
+        private final List<String> properties;
+        private final List<String> retrievableProperties;
+        private final Map<String, String> internalProperties =
+                new HashMap<String, String>();
+
+        private TypeMetadata(Class<? extends ETSoapObject> type)
+            throws ETSdkException
+        {
+            this.type = type;
 
-        SoapObject internalTypeAnnotation
-            = externalType.getAnnotation(SoapObject.class);
-        assert internalTypeAnnotation != null;
-        Class<? extends APIObject> internalType = internalTypeAnnotation.internalType();
-        assert internalType != null;
+            SoapObject internalTypeAnnotation = type.getAnnotation(SoapObject.class);
+            assert internalTypeAnnotation != null;
+            internalType = internalTypeAnnotation.internalType();
+            assert internalType != null;
 
-        //
-        // Build a list of fields from externalType and all superclasses:
-        //
+            //
+            // Resolve the internal names of all properties of the type
+            // and its superclasses up front:
+            //
 
-        List<Field> externalFields = getAllFields(externalType);
+            List<String> properties = new ArrayList<String>();
+            for (Field field : getAllFields(type)) {
+                //
+                // Skip this field if it doesn't have the @ExternalName
+                // annotation (it's an internal field):
+                //
 
-        //
-        // Walk the list of external fields, building a list of the
-        // corresponding property names:
-        //
+                if (field.getAnnotation(ExternalName.class) == null) {
+                    continue;
+                }
 
-        for (Field externalField : externalFields) {
-            //
-            // Skip this field if it doesn't have the @ExternalName
-            // annotation (it's an internal field):
-            //
+                String internalProperty = resolveInternalProperty(type, field.getName());
+                assert internalProperty != null;
+                properties.add(internalProperty);
+                internalProperties.put(field.getName(), internalProperty);
+            }
 
-            ExternalName externalName =
-                    externalField.getAnnotation(ExternalName.class);
-            if (externalName == null) {
-                continue;
+            List<String> retrievableProperties = new ArrayList<String>(properties);
+            for (String property : internalTypeAnnotation.unretrievable()) {
+                retrievableProperties.remove(property);
             }
+            this.properties = Collections.unmodifiableList(properties);
+            this.retrievableProperties =
+                    Collections.unmodifiableList(retrievableProperties);
+        }
+
+        /**
+         * @return  The internal (SOAP) type
+         */
+        public Class<? extends APIObject> getInternalType() {
+            return internalType;
+        }
+
+        /**
+         * @return  The internal names of all properties
+         */
+        public List<String> getProperties() {
+            return properties;
+        }
 
-            String internalProperty = getInternalProperty(externalType,
-                                                          externalField.getName());
-            assert internalProperty != null;
-            internalProperties.add(internalProperty);
+        /**
+         * @return  The internal names of all properties but
+         *          those that are unretrievable
+         */
+        public List<String> getRetrievableProperties() {
+            return retrievableProperties;
         }
 
-        return internalProperties;
+        /**
+         * @param name  The external property name
+         * @return      The internal property name
+         * @throws ETSdkException
+         */
+        public String getInternalProperty(String name)
+            throws ETSdkException
+        {
+            String internalProperty = internalProperties.get(name);
+            if (internalProperty == null) {
+                // not a mapped property (e.g., a data extension column)
+                internalProperty = resolveInternalProperty(type, name);
+            }
+            return internalProperty;
+        }
+    }
+
+    /**
+     * @param expression    The ETExpression object
+     * @param metadata      The TypeMetadata of the type being retrieved
+     * @return              A copy of the expression with the property
+     *                      names converted to their internal counterparts
+     * @throws ETSdkException
+     */
+    protected static ETExpression toInternalExpression(ETExpression expression,
+                                                       TypeMetadata metadata)
+        throws ETSdkException
+    {
+        ETExpression internalExpression = new ETExpression();
+        String property = expression.getProperty();
+        if (property != null) {
+            internalExpression.setProperty(metadata.getInternalProperty(property));
+        }
+        internalExpression.setOperator(expression.getOperator());
+        internalExpression.getValues().addAll(expression.getValues());
+        for (ETExpression subexpression : expression.getSubexpressions()) {
+            internalExpression.addSubexpression(toInternalExpression(subexpression,
+                                                                     metadata));
+        }
+        return internalExpression;
     }
 
     /**
@@ -1526,4 +1541,17 @@ public abstract class ETSoapObject extends ETApiObject {
             return simpleFilterPart;
         }
     }
+
+    /**
+     * An <code>ObjectCallback</code> receives the objects retrieved
+     * by <code>retrieve</code> one at a time as they are read.
+     */
+    public interface ObjectCallback<T extends ETSoapObject> {
+        /**
+         * @param object    The object
+         * @throws ETSdkException
+         */
+        public void onObject(T object)
+            throws ETSdkException;
+    }
 }
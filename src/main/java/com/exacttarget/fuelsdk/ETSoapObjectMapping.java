@@ -0,0 +1,515 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import com.exacttarget.fuelsdk.annotations.ExternalName;
+import com.exacttarget.fuelsdk.annotations.InternalName;
+import com.exacttarget.fuelsdk.internal.APIObject;
+import com.exacttarget.fuelsdk.internal.DataExtension;
+import com.exacttarget.fuelsdk.internal.DataExtensionField;
+import org.apache.commons.beanutils.Converter;
+import org.apache.commons.lang.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An <code>ETSoapObjectMapping</code> is the precomputed plan
+ * for converting between an <code>ETSoapObject</code> type and
+ * its internal (SOAP) type. Annotations are read, accessors are
+ * resolved to method handles, and converters are looked up once
+ * per pair of types; <code>fromInternal</code> and
+ * <code>toInternal</code> then just run the plan.
+ */
+
+class ETSoapObjectMapping {
+    private static final Logger logger = LoggerFactory.getLogger(ETSoapObjectMapping.class);
+
+    private static final MethodType GETTER_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<Class<?>, ETSoapObjectMapping>> mappings =
+            new ClassValue<ConcurrentMap<Class<?>, ETSoapObjectMapping>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, ETSoapObjectMapping> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Class<?>, ETSoapObjectMapping>();
+        }
+    };
+
+    private final Class<? extends ETSoapObject> externalType;
+    private final Class<? extends APIObject> internalType;
+    private final List<Property> properties;
+
+    private ETSoapObjectMapping(Class<? extends ETSoapObject> externalType,
+                                Class<? extends APIObject> internalType)
+        throws ETSdkException
+    {
+        this.externalType = externalType;
+        this.internalType = internalType;
+
+        Map<String, PropertyDescriptor> externalDescriptors =
+                getPropertyDescriptors(externalType);
+        Map<String, PropertyDescriptor> internalDescriptors =
+                getPropertyDescriptors(internalType);
+
+        List<Property> properties = new ArrayList<Property>();
+        for (Field externalField : ETObject.getAllFields(externalType)) {
+            //
+            // Skip this field if it doesn't have the @ExternalName
+            // annotation (it's an internal field):
+            //
+
+            if (externalField.getAnnotation(ExternalName.class) == null) {
+                continue;
+            }
+
+            String externalName = externalField.getName();
+            String internalName = null;
+
+            InternalName internalNameAnnotation =
+                    externalField.getAnnotation(InternalName.class);
+            if (internalNameAnnotation != null) {
+                internalName = internalNameAnnotation.value();
+            } else {
+                // internal name is the same as external name
+                internalName = externalName;
+            }
+
+            Field internalField = null;
+            for (Class<?> t = internalType; t != null && internalField == null; t = t.getSuperclass()) {
+                try {
+                    internalField = t.getDeclaredField(internalName);
+                } catch (NoSuchFieldException ex) {
+                    continue;
+                }
+            }
+
+            properties.add(new Property(externalName,
+                                        externalField,
+                                        externalDescriptors.get(externalName),
+                                        internalName,
+                                        internalField,
+                                        internalDescriptors.get(internalName)));
+        }
+        this.properties = properties;
+    }
+
+    /**
+     * @param externalType  The ETSoapObject type
+     * @param internalType  The internal (SOAP) type
+     * @return              The mapping between the two types
+     * @throws ETSdkException
+     */
+    static ETSoapObjectMapping getMapping(Class<? extends ETSoapObject> externalType,
+                                          Class<? extends APIObject> internalType)
+        throws ETSdkException
+    {
+        ConcurrentMap<Class<?>, ETSoapObjectMapping> mappingsByInternalType =
+                mappings.get(externalType);
+        ETSoapObjectMapping mapping = mappingsByInternalType.get(internalType);
+        if (mapping == null) {
+            mapping = new ETSoapObjectMapping(externalType, internalType);
+            ETSoapObjectMapping existing =
+                    mappingsByInternalType.putIfAbsent(internalType, mapping);
+            if (existing != null) {
+                mapping = existing;
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Copies the properties of an internal object to an
+     * external object.
+     * @param internalObject    The internal APIObject
+     * @param externalObject    The ETSoapObject
+     * @throws ETSdkException
+     */
+    void fromInternal(APIObject internalObject, ETSoapObject externalObject)
+        throws ETSdkException
+    {
+        for (Property property : properties) {
+            Object internalValue = property.getInternal(internalObject);
+
+            if (internalValue == null) {
+                continue;
+            }
+
+            if (internalValue instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<APIObject> internalList = (List<APIObject>) internalValue;
+                List<ETSoapObject> externalList = new ArrayList<ETSoapObject>();
+                Class<?> externalItemType = property.getExternalItemType();
+                for (APIObject internalItem : internalList) {
+                    ETSoapObject externalItem = null;
+                    try {
+                        externalItem = (ETSoapObject) externalItemType.newInstance();
+                    } catch (Exception ex) {
+                        throw new ETSdkException("could not instantiate "
+                                + externalItemType.getName(), ex);
+                    }
+                    externalList.add(externalItem.fromInternal(internalItem));
+                }
+                property.setExternalField(externalObject, externalList);
+                continue;
+            }
+
+            property.setExternal(externalObject, internalValue);
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("  converted field "
+                        + internalType.getSimpleName() + "." + property.internalName
+                        + " (value=" + internalValue + ")");
+                logger.trace("         to field "
+                        + externalType.getSimpleName() + "." + property.externalName
+                        + " (value=" + property.getExternal(externalObject) + ")");
+            }
+        }
+    }
+
+    /**
+     * Copies the properties of an external object to an
+     * internal object.
+     * @param externalObject    The ETSoapObject
+     * @param internalObject    The internal APIObject
+     * @throws ETSdkException
+     */
+    void toInternal(ETSoapObject externalObject, APIObject internalObject)
+        throws ETSdkException
+    {
+        for (Property property : properties) {
+            Object externalValue = property.getExternal(externalObject);
+
+            if (externalValue == null) {
+                continue;
+            }
+
+            if (externalValue instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<ETSoapObject> externalList = (List<ETSoapObject>) externalValue;
+                List<APIObject> internalList = new ArrayList<APIObject>();
+                for (ETSoapObject externalItem : externalList) {
+                    internalList.add(externalItem.toInternal());
+                }
+                if (property.internalName.equals("fields")) {
+                    //
+                    // This list contains data extension columns:
+                    //
+
+                    DataExtension.Fields fields = new DataExtension.Fields();
+                    for (APIObject field : internalList) {
+                        fields.getField().add((DataExtensionField) field);
+                    }
+                    property.setInternalField(internalObject, fields);
+                } else {
+                    property.setInternalField(internalObject, internalList);
+                }
+                continue;
+            }
+
+            property.setInternal(internalObject, externalValue);
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("  converted field "
+                        + externalType.getSimpleName() + "." + property.externalName
+                        + " (value=" + externalValue + ")");
+                logger.trace("         to field "
+                        + internalType.getSimpleName() + "." + property.internalName
+                        + " (value=" + property.getInternal(internalObject) + ")");
+            }
+        }
+    }
+
+    private static Map<String, PropertyDescriptor> getPropertyDescriptors(Class<?> type)
+        throws ETSdkException
+    {
+        BeanInfo beanInfo = null;
+        try {
+            beanInfo = Introspector.getBeanInfo(type);
+        } catch (IntrospectionException ex) {
+            throw new ETSdkException("could not introspect " + type.getName(), ex);
+        }
+        Map<String, PropertyDescriptor> descriptors =
+                new HashMap<String, PropertyDescriptor>();
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            descriptors.put(descriptor.getName(), descriptor);
+        }
+        return descriptors;
+    }
+
+    private static MethodHandle unreflect(Method method, MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (Exception ex) {
+            logger.debug("could not resolve " + method + ", will not be mapped", ex);
+            return null;
+        }
+    }
+
+    private static Converter lookupConverter(Class<?> type) {
+        if (type == null) {
+            return null;
+        }
+        Converter converter = ETSoapObject.lookupConverter(type);
+        if (converter == null) {
+            // strings can always be converted (see ConvertUtilsBean.convert)
+            converter = new StringOnlyConverter(ETSoapObject.lookupConverter(String.class));
+        }
+        return converter;
+    }
+
+    /**
+     * A <code>Property</code> is one step of the plan: the
+     * resolved accessors and converters for one external field
+     * and the internal property it maps to.
+     */
+    private static class Property {
+        private final String externalName;
+        private final Field externalField;
+        private final MethodHandle externalGetter;
+        private final MethodHandle externalSetter;
+        private final Class<?> externalPropertyType;
+        private final Converter externalConverter;
+        private final String internalName;
+        private final Field internalField;
+        private final MethodHandle internalGetter;
+        private final MethodHandle internalSetter;
+        private final Class<?> internalPropertyType;
+        private final Converter internalConverter;
+        private volatile Class<?> externalItemType = null;
+
+        private Property(String externalName,
+                         Field externalField,
+                         PropertyDescriptor externalDescriptor,
+                         String internalName,
+                         Field internalField,
+                         PropertyDescriptor internalDescriptor)
+        {
+            this.externalName = externalName;
+            this.externalField = externalField;
+            this.internalName = internalName;
+            this.internalField = internalField;
+
+            if (externalDescriptor != null) {
+                externalGetter = unreflect(externalDescriptor.getReadMethod(), GETTER_TYPE);
+                externalSetter = unreflect(externalDescriptor.getWriteMethod(), SETTER_TYPE);
+                externalPropertyType = externalDescriptor.getPropertyType();
+            } else {
+                externalGetter = null;
+                externalSetter = null;
+                externalPropertyType = null;
+            }
+            if (internalDescriptor != null) {
+                internalGetter = unreflect(internalDescriptor.getReadMethod(), GETTER_TYPE);
+                internalSetter = unreflect(internalDescriptor.getWriteMethod(), SETTER_TYPE);
+                internalPropertyType = internalDescriptor.getPropertyType();
+            } else {
+                internalGetter = null;
+                internalSetter = null;
+                internalPropertyType = null;
+            }
+
+            externalConverter = externalSetter != null ? lookupConverter(externalPropertyType) : null;
+            internalConverter = internalSetter != null ? lookupConverter(internalPropertyType) : null;
+        }
+
+        private Object getExternal(ETSoapObject externalObject)
+            throws ETSdkException
+        {
+            return get(externalGetter, externalObject, externalName);
+        }
+
+        private Object getInternal(APIObject internalObject)
+            throws ETSdkException
+        {
+            return get(internalGetter, internalObject, internalName);
+        }
+
+        private void setExternal(ETSoapObject externalObject, Object value)
+            throws ETSdkException
+        {
+            set(externalSetter, externalPropertyType, externalConverter,
+                externalObject, externalName, value);
+        }
+
+        private void setInternal(APIObject internalObject, Object value)
+            throws ETSdkException
+        {
+            set(internalSetter, internalPropertyType, internalConverter,
+                internalObject, internalName, value);
+        }
+
+        private void setExternalField(ETSoapObject externalObject, Object value)
+            throws ETSdkException
+        {
+            setField(externalField, externalObject, externalName, value);
+        }
+
+        private void setInternalField(APIObject internalObject, Object value)
+            throws ETSdkException
+        {
+            if (internalField == null) {
+                throw new ETSdkException("field \""
+                        + internalName
+                        + "\" does not exist in class "
+                        + internalObject.getClass().getName());
+            }
+            setField(internalField, internalObject, internalName, value);
+        }
+
+        private Class<?> getExternalItemType() {
+            Class<?> itemType = externalItemType;
+            if (itemType == null) {
+                Type fieldType = externalField.getGenericType();
+                assert fieldType instanceof ParameterizedType;
+                ParameterizedType parameterizedType
+                    = (ParameterizedType) fieldType;
+                assert parameterizedType.getActualTypeArguments().length == 1;
+                itemType = (Class<?>) parameterizedType.getActualTypeArguments()[0];
+                externalItemType = itemType;
+            }
+            return itemType;
+        }
+
+        private static Object get(MethodHandle getter, Object object, String name)
+            throws ETSdkException
+        {
+            if (getter == null) {
+                throw new ETSdkException("could not get property \""
+                        + name
+                        + "\" of object "
+                        + object);
+            }
+            try {
+                return (Object) getter.invokeExact(object);
+            } catch (Throwable ex) {
+                throw new ETSdkException("could not get property \""
+                        + name
+                        + "\" of object "
+                        + object,
+                        ex);
+            }
+        }
+
+        private static void set(MethodHandle setter,
+                                Class<?> type,
+                                Converter converter,
+                                Object object,
+                                String name,
+                                Object value)
+            throws ETSdkException
+        {
+            if (setter == null) {
+                // read-only or nonexistent property (BeanUtils
+                // silently skips these too)
+                return;
+            }
+            try {
+                Object convertedValue = value;
+                if (!ClassUtils.primitiveToWrapper(type).isInstance(value)) {
+                    convertedValue = converter.convert(type, value);
+                }
+                setter.invokeExact(object, convertedValue);
+            } catch (Throwable ex) {
+                throw new ETSdkException("could not set property \""
+                        + name
+                        + "\" of object "
+                        + object,
+                        ex);
+            }
+        }
+
+        private static void setField(Field field, Object object, String name, Object value)
+            throws ETSdkException
+        {
+            try {
+                field.setAccessible(true);
+                field.set(object, value);
+            } catch (Exception ex) {
+                throw new ETSdkException("could not set field \""
+                        + name
+                        + "\" of object "
+                        + object,
+                        ex);
+            }
+        }
+    }
+
+    /**
+     * Passes values through unconverted unless they're
+     * strings (like BeanUtils does for types it has no
+     * converter for).
+     */
+    private static class StringOnlyConverter implements Converter {
+        private final Converter stringConverter;
+
+        private StringOnlyConverter(Converter stringConverter) {
+            this.stringConverter = stringConverter;
+        }
+
+        @Override
+        public <T> T convert(Class<T> type, Object value) {
+            if (value instanceof String && stringConverter != null) {
+                return stringConverter.convert(type, value);
+            }
+            @SuppressWarnings("unchecked")
+            T t = (T) value;
+            return t;
+        }
+    }
+}
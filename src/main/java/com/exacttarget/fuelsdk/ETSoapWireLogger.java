@@ -0,0 +1,233 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.model.BindingOperationInfo;
+
+import com.exacttarget.fuelsdk.internal.CreateResponse;
+import com.exacttarget.fuelsdk.internal.DeleteResponse;
+import com.exacttarget.fuelsdk.internal.RetrieveResponseMsg;
+import com.exacttarget.fuelsdk.internal.UpdateResponse;
+
+/**
+ * An <code>ETSoapWireLogger</code> logs SOAP envelopes through an
+ * <code>ETWireLogger</code>. It is only installed if soapWireLog is
+ * set, so by default envelopes are never copied or formatted.
+ * Logging can be restricted to some operations (e.g., "Create")
+ * and to calls that failed (a SOAP fault, an error sending the
+ * request, or an overall status other than OK).
+ */
+
+class ETSoapWireLogger {
+    private static final String CAPTURE = ETSoapWireLogger.class.getName() + ".capture";
+    private static final String RESPONSE_CAPTURED = ETSoapWireLogger.class.getName() + ".responseCaptured";
+
+    private final ETWireLogger wireLogger;
+    private final Set<String> operations;
+    private final boolean failuresOnly;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param configuration     The ETConfiguration object
+    */
+    ETSoapWireLogger(ETConfiguration configuration) {
+        wireLogger = new ETWireLogger(configuration);
+        String value = configuration.get("soapWireLogOperations");
+        if (value != null && value.trim().length() > 0) {
+            operations = new HashSet<String>();
+            for (String operation : value.split(",")) {
+                operations.add(operation.trim());
+            }
+        } else {
+            operations = null;
+        }
+        failuresOnly = configuration.isTrue("soapWireLogFailuresOnly");
+    }
+
+    /**
+     * @param   configuration   The ETConfiguration object
+     * @return  true if SOAP envelopes are to be logged
+     */
+    static boolean isEnabled(ETConfiguration configuration) {
+        return configuration.isTrue("soapWireLog");
+    }
+
+    /**
+     * @param   client  The CXF client of a SOAP proxy
+     */
+    void install(Client client) {
+        client.getOutInterceptors().add(new SendInterceptor());
+        client.getInInterceptors().add(new ReceiveInterceptor());
+        client.getInInterceptors().add(new DoneInterceptor(false));
+        client.getInFaultInterceptors().add(new ReceiveInterceptor());
+        client.getInFaultInterceptors().add(new DoneInterceptor(true));
+    }
+
+    private static String getOperation(Exchange exchange) {
+        BindingOperationInfo operationInfo = exchange.getBindingOperationInfo();
+        if (operationInfo == null) {
+            return null;
+        }
+        return operationInfo.getName().getLocalPart();
+    }
+
+    private void done(Exchange exchange, String status, boolean failed) {
+        ETWireLogger.Capture capture = (ETWireLogger.Capture) exchange.remove(CAPTURE);
+        if (capture == null || (failuresOnly && !failed)) {
+            return;
+        }
+        String operation = getOperation(exchange);
+        capture.logRequest(operation + " request");
+        capture.logResponse(operation + " " + status);
+    }
+
+    private static boolean isFailed(List<?> contents) {
+        if (contents == null) {
+            return false;
+        }
+        for (Object content : contents) {
+            String overallStatus = null;
+            if (content instanceof CreateResponse) {
+                overallStatus = ((CreateResponse) content).getOverallStatus();
+            } else if (content instanceof UpdateResponse) {
+                overallStatus = ((UpdateResponse) content).getOverallStatus();
+            } else if (content instanceof DeleteResponse) {
+                overallStatus = ((DeleteResponse) content).getOverallStatus();
+            } else if (content instanceof RetrieveResponseMsg) {
+                overallStatus = ((RetrieveResponseMsg) content).getOverallStatus();
+            }
+            if (overallStatus != null
+                    && !overallStatus.equals("OK")
+                    && !overallStatus.equals("MoreDataAvailable"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the request envelope as it is written (if the
+     * operation is selected and the exchange is sampled).
+     */
+    private class SendInterceptor extends AbstractPhaseInterceptor<Message> {
+        private SendInterceptor() {
+            super(Phase.PRE_STREAM);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            Exchange exchange = message.getExchange();
+            if (operations != null && !operations.contains(getOperation(exchange))) {
+                return;
+            }
+            OutputStream os = message.getContent(OutputStream.class);
+            if (os == null) {
+                return;
+            }
+            ETWireLogger.Capture capture = wireLogger.capture();
+            if (capture == null) {
+                return;
+            }
+            message.setContent(OutputStream.class, capture.wrap(os));
+            exchange.put(CAPTURE, capture);
+        }
+
+        @Override
+        public void handleFault(Message message) {
+            // the request couldn't be sent (or the response received)
+            Exception ex = message.getContent(Exception.class);
+            done(message.getExchange(), "failed: " + ex, true);
+        }
+    }
+
+    /**
+     * Copies the response envelope as it is read.
+     */
+    private class ReceiveInterceptor extends AbstractPhaseInterceptor<Message> {
+        private ReceiveInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            Exchange exchange = message.getExchange();
+            ETWireLogger.Capture capture = (ETWireLogger.Capture) exchange.get(CAPTURE);
+            if (capture == null || exchange.containsKey(RESPONSE_CAPTURED)) {
+                return;
+            }
+            InputStream is = message.getContent(InputStream.class);
+            if (is == null) {
+                return;
+            }
+            message.setContent(InputStream.class, capture.wrap(is));
+            exchange.put(RESPONSE_CAPTURED, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Logs the exchange once the response has been read.
+     */
+    private class DoneInterceptor extends AbstractPhaseInterceptor<Message> {
+        private final boolean fault;
+
+        private DoneInterceptor(boolean fault) {
+            super(Phase.POST_INVOKE);
+            this.fault = fault;
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            Object responseCode = message.get(Message.RESPONSE_CODE);
+            if (fault) {
+                done(message.getExchange(), "fault (" + responseCode + ")", true);
+            } else {
+                done(message.getExchange(), "response (" + responseCode + ")",
+                     isFailed(message.getContent(List.class)));
+            }
+        }
+    }
+}
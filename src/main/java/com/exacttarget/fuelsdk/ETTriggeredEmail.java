@@ -43,7 +43,6 @@ import com.exacttarget.fuelsdk.internal.CreateOptions;
 import com.exacttarget.fuelsdk.internal.CreateRequest;
 import com.exacttarget.fuelsdk.internal.CreateResponse;
 import com.exacttarget.fuelsdk.internal.CreateResult;
-import com.exacttarget.fuelsdk.internal.Soap;
 import com.exacttarget.fuelsdk.internal.Subscriber;
 import com.exacttarget.fuelsdk.internal.TriggeredSend;
 import com.exacttarget.fuelsdk.internal.TriggeredSendDefinition;
@@ -432,8 +431,6 @@ public class ETTriggeredEmail extends ETSoapObject {
         // Perform the SOAP create:
         //
 
-        Soap soap = connection.getSoap();
-
         CreateRequest createRequest = new CreateRequest();
         createRequest.setOptions(new CreateOptions());
         TriggeredSend triggeredSend = new TriggeredSend();
@@ -456,7 +453,7 @@ public class ETTriggeredEmail extends ETSoapObject {
 
         logger.trace("calling soap.create...");
 
-        CreateResponse createResponse = soap.create(createRequest);
+        CreateResponse createResponse = connection.create(createRequest);
 
         if (logger.isTraceEnabled()) {
             logger.trace("CreateResponse:");
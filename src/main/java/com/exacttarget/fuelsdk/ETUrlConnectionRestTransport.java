@@ -0,0 +1,245 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * An <code>ETUrlConnectionRestTransport</code> sends requests
+ * using <code>HttpURLConnection</code>. Connection reuse is
+ * left to the JDK keep-alive cache (see the
+ * <code>http.keepAlive</code> and <code>http.maxConnections</code>
+ * system properties).
+ */
+
+public class ETUrlConnectionRestTransport implements ETRestTransport {
+    private Integer connectTimeout = null;
+    private Integer readTimeout = null;
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param configuration     The ETConfiguration object
+    */
+    public ETUrlConnectionRestTransport(ETConfiguration configuration) {
+        connectTimeout = configuration.getInteger("restConnectTimeout", null);
+        readTimeout = configuration.getInteger("restReadTimeout", null);
+    }
+
+    @Override
+    public Exchange execute(ETRestConnection.Method method,
+                            URL url,
+                            Map<String, String> headers,
+                            Body body)
+        throws ETSdkException
+    {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod(method.toString());
+        } catch (ProtocolException ex) {
+            throw new ETSdkException("error setting request method: " + method.toString(), ex);
+        } catch (IOException ex) {
+            throw new ETSdkException("error opening " + url, ex);
+        }
+
+        //
+        // If this is an asynchronous call, bound the timeouts by
+        // the time remaining and disconnect if the call is
+        // cancelled:
+        //
+
+        ETCallContext context = ETCallContext.current();
+        Integer remainingTime = context != null ? context.getRemainingTime() : null;
+
+        if (connectTimeout != null || remainingTime != null) {
+            connection.setConnectTimeout(min(connectTimeout, remainingTime));
+        }
+        if (readTimeout != null || remainingTime != null) {
+            connection.setReadTimeout(min(readTimeout, remainingTime));
+        }
+
+        Runnable abort = null;
+        if (context != null) {
+            final HttpURLConnection abortableConnection = connection;
+            abort = new Runnable() {
+                @Override
+                public void run() {
+                    abortableConnection.disconnect();
+                }
+            };
+            if (!context.addCancelCallback(abort)) {
+                throw new ETSdkException("call cancelled");
+            }
+        }
+
+        if (method == ETRestConnection.Method.GET) {
+            connection.setDoInput(true);
+        } else {
+            connection.setDoOutput(true);
+        }
+
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        if (body != null) {
+            //
+            // Stream the body rather than letting HttpURLConnection
+            // buffer it to work out the Content-Length:
+            //
+
+            long contentLength = body.getContentLength();
+            if (contentLength >= 0) {
+                connection.setFixedLengthStreamingMode(contentLength);
+            } else {
+                connection.setChunkedStreamingMode(0);
+            }
+
+            OutputStream os = null;
+            try {
+                os = connection.getOutputStream();
+                body.writeTo(os);
+                os.flush();
+            } catch (IOException ex) {
+                removeCancelCallback(context, abort);
+                throw new ETSdkException("error writing " + url, ex);
+            } finally {
+                if (os != null) {
+                    try {
+                        os.close();
+                    } catch (IOException ex) {
+                        throw new ETSdkException("error closing connection after writing " + url, ex);
+                    }
+                }
+            }
+        }
+
+        return new UrlConnectionExchange(connection, context, abort);
+    }
+
+    private static int min(Integer timeout, Integer remainingTime) {
+        if (timeout == null || timeout <= 0) {
+            // 0 means no timeout
+            return remainingTime != null ? remainingTime : 0;
+        }
+        return remainingTime != null ? Math.min(timeout, remainingTime) : timeout;
+    }
+
+    private static void removeCancelCallback(ETCallContext context, Runnable callback) {
+        if (context != null) {
+            context.removeCancelCallback(callback);
+        }
+    }
+
+    @Override
+    public void close() {
+        // nothing to release--the JDK owns the keep-alive cache
+    }
+
+    private static class UrlConnectionExchange implements Exchange {
+        private HttpURLConnection connection = null;
+        private InputStream inputStream = null;
+        private ETCallContext context = null;
+        private Runnable abort = null;
+
+        private UrlConnectionExchange(HttpURLConnection connection,
+                                      ETCallContext context,
+                                      Runnable abort)
+        {
+            this.connection = connection;
+            this.context = context;
+            this.abort = abort;
+        }
+
+        @Override
+        public int getResponseCode()
+            throws IOException
+        {
+            return connection.getResponseCode();
+        }
+
+        @Override
+        public String getResponseMessage()
+            throws IOException
+        {
+            return connection.getResponseMessage();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getInputStream()
+            throws IOException
+        {
+            if (inputStream == null) {
+                if (connection.getResponseCode() < 400) {
+                    inputStream = connection.getInputStream();
+                } else {
+                    inputStream = connection.getErrorStream();
+                }
+                if (inputStream == null) {
+                    inputStream = new ByteArrayInputStream(new byte[0]);
+                }
+            }
+            return inputStream;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            //
+            // Closing (rather than disconnecting) a fully read
+            // stream hands the socket back to the keep-alive cache:
+            //
+
+            try {
+                getInputStream().close();
+            } finally {
+                removeCancelCallback(context, abort);
+            }
+        }
+    }
+}
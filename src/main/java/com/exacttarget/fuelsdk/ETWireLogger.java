@@ -0,0 +1,254 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An <code>ETWireLogger</code> logs request and response bodies to
+ * a logger of its own (<code>com.exacttarget.fuelsdk.wire</code>),
+ * so they can be logged without enabling debug logging for the
+ * rest of the SDK. Bodies are copied as they are sent and received
+ * (never re-parsed), only the first <code>wireLogMaxBytes</code>
+ * bytes of each are kept, only one in every
+ * <code>wireLogSampling</code> exchanges is logged, and the bytes
+ * are only decoded when the message is actually formatted.
+ */
+
+class ETWireLogger {
+    static final String NAME = "com.exacttarget.fuelsdk.wire";
+
+    private static final Logger logger = LoggerFactory.getLogger(NAME);
+
+    private static final int DEFAULT_MAX_BYTES = 4096;
+    private static final int DEFAULT_SAMPLING = 1;
+
+    private final int maxBytes;
+    private final int sampling;
+
+    private final AtomicLong exchanges = new AtomicLong();
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param configuration     The ETConfiguration object
+    */
+    ETWireLogger(ETConfiguration configuration) {
+        this(configuration.getInteger("wireLogMaxBytes", DEFAULT_MAX_BYTES),
+             configuration.getInteger("wireLogSampling", DEFAULT_SAMPLING));
+    }
+
+    /**
+    * Class constructor, Initializes a new instance of the class.
+     * @param maxBytes  The maximum number of bytes of each body to log
+     * @param sampling  Log one in every sampling exchanges
+    */
+    ETWireLogger(int maxBytes, int sampling) {
+        this.maxBytes = Math.max(maxBytes, 0);
+        this.sampling = Math.max(sampling, 1);
+    }
+
+    /**
+     * @return  A Capture for the next exchange, or null if
+     *          it isn't to be logged
+     */
+    Capture capture() {
+        if (!logger.isDebugEnabled()) {
+            return null;
+        }
+        if (sampling > 1 && exchanges.getAndIncrement() % sampling != 0) {
+            return null;
+        }
+        return new Capture(maxBytes);
+    }
+
+    /**
+     * A <code>Capture</code> copies (the start of) the request and
+     * response bodies of one exchange as they are written and read.
+     */
+    static class Capture {
+        private final int maxBytes;
+
+        private Payload request = null;
+        private Payload response = null;
+
+        private Capture(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @param   out     The stream the request body is written to
+         * @return  A stream that also copies the request body into
+         *          the capture (replacing any request body captured
+         *          but not logged yet)
+         */
+        OutputStream wrap(OutputStream out) {
+            final Payload payload = new Payload(maxBytes);
+            request = payload;
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(int b)
+                    throws IOException
+                {
+                    out.write(b);
+                    payload.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len)
+                    throws IOException
+                {
+                    out.write(b, off, len);
+                    payload.write(b, off, len);
+                }
+            };
+        }
+
+        /**
+         * @param   in      The stream the response body is read from
+         * @return  A stream that also copies the response body into
+         *          the capture (replacing any response body captured
+         *          but not logged yet)
+         */
+        InputStream wrap(InputStream in) {
+            final Payload payload = new Payload(maxBytes);
+            response = payload;
+            return new FilterInputStream(in) {
+                @Override
+                public int read()
+                    throws IOException
+                {
+                    int b = in.read();
+                    if (b != -1) {
+                        payload.write(b);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len)
+                    throws IOException
+                {
+                    int n = in.read(b, off, len);
+                    if (n > 0) {
+                        payload.write(b, off, n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        /**
+         * Logs the message followed by the request body
+         * captured since it was last logged (if any).
+         * @param   message The message
+         */
+        void logRequest(String message) {
+            log(message, request);
+            request = null;
+        }
+
+        /**
+         * Logs the message followed by the response body
+         * captured since it was last logged (if any).
+         * @param   message The message
+         */
+        void logResponse(String message) {
+            log(message, response);
+            response = null;
+        }
+
+        private static void log(String message, Payload payload) {
+            if (payload == null || payload.getLength() == 0) {
+                logger.debug(message);
+            } else {
+                logger.debug("{}\n{}", message, payload);
+            }
+        }
+    }
+
+    /**
+     * A <code>Payload</code> keeps the first maxBytes bytes
+     * written to it (and counts the rest).
+     */
+    private static class Payload {
+        private final byte[] bytes;
+        private int count = 0;
+        private long length = 0;
+
+        private Payload(int maxBytes) {
+            bytes = new byte[maxBytes];
+        }
+
+        private void write(int b) {
+            if (count < bytes.length) {
+                bytes[count++] = (byte) b;
+            }
+            length++;
+        }
+
+        private void write(byte[] b, int off, int len) {
+            int n = Math.min(len, bytes.length - count);
+            if (n > 0) {
+                System.arraycopy(b, off, bytes, count, n);
+                count += n;
+            }
+            length += len;
+        }
+
+        private long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            // only decoded if the message is actually logged
+            String s = new String(bytes, 0, count, UTF_8);
+            if (length > count) {
+                s += "... [" + (length - count) + " more bytes]";
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ETAsyncClientTest {
+    private static ExecutorService executor = null;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETAsyncClientTest.class
+                .getResource("/fuelsdk-test.properties"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class BlockingCall implements ETAsyncClient.Call<String> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private volatile Integer remainingTime = null;
+
+        @Override
+        public String call(ETClient client)
+            throws ETSdkException
+        {
+            remainingTime = ETCallContext.current().getRemainingTime();
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+                throw new ETSdkException("interrupted", ex);
+            }
+            return "done";
+        }
+    }
+
+    @Test
+    public void testSubmit()
+        throws Exception
+    {
+        ETAsyncClient async = new ETAsyncClient(null, executor, 0);
+        CompletableFuture<String> future = async.submit(new ETAsyncClient.Call<String>() {
+            @Override
+            public String call(ETClient client) {
+                assertNotNull(ETCallContext.current());
+                return "result";
+            }
+        });
+        assertEquals("result", future.get());
+    }
+
+    @Test
+    public void testException()
+        throws Exception
+    {
+        ETAsyncClient async = new ETAsyncClient(null, executor, 0);
+        CompletableFuture<String> future = async.submit(new ETAsyncClient.Call<String>() {
+            @Override
+            public String call(ETClient client)
+                throws ETSdkException
+            {
+                throw new ETSdkException("failed");
+            }
+        });
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ETSdkException);
+        }
+    }
+
+    @Test
+    public void testCancel()
+        throws Exception
+    {
+        ETAsyncClient async = new ETAsyncClient(null, executor, 0);
+        BlockingCall call = new BlockingCall();
+        CompletableFuture<String> future = async.submit(call);
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+        assertNull(call.remainingTime);
+        future.cancel(true);
+        assertTrue(call.interrupted.await(5, TimeUnit.SECONDS));
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTimeout()
+        throws Exception
+    {
+        ETAsyncClient async = new ETAsyncClient(null, executor, 0)
+                .withTimeout(200, TimeUnit.MILLISECONDS);
+        BlockingCall call = new BlockingCall();
+        CompletableFuture<String> future = async.submit(call);
+        assertTrue(call.started.await(5, TimeUnit.SECONDS));
+        assertTrue(call.remainingTime > 0 && call.remainingTime <= 200);
+        assertTrue(call.interrupted.await(5, TimeUnit.SECONDS));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ETBulkOperationTest {
+    private static ExecutorService executor = null;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETBulkOperationTest.class
+                .getResource("/fuelsdk-test.properties"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<ETDataExtensionRow> createRows(int count) {
+        List<ETDataExtensionRow> rows = new ArrayList<ETDataExtensionRow>();
+        for (int i = 0; i < count; i++) {
+            ETDataExtensionRow row = new ETDataExtensionRow();
+            row.setColumn("id", Integer.toString(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static class TestBatch implements ETBulkOperation.Batch<ETDataExtensionRow> {
+        private final int size;
+        private final List<Integer> batchSizes = new ArrayList<Integer>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int maxInFlight = 0;
+
+        private TestBatch(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int estimateSize(ETDataExtensionRow row) {
+            return size;
+        }
+
+        @Override
+        public ETResponse<ETDataExtensionRow> send(List<ETDataExtensionRow> rows)
+            throws ETSdkException
+        {
+            synchronized (batchSizes) {
+                batchSizes.add(rows.size());
+            }
+            int n = inFlight.incrementAndGet();
+            maxInFlight = Math.max(maxInFlight, n);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                throw new ETSdkException("interrupted", ex);
+            }
+            inFlight.decrementAndGet();
+            if (rows.get(0).getColumn("id").equals("10")) {
+                throw new ETSdkException("batch failed");
+            }
+            ETResponse<ETDataExtensionRow> response = new ETResponse<ETDataExtensionRow>();
+            for (ETDataExtensionRow row : rows) {
+                ETResult<ETDataExtensionRow> result = new ETResult<ETDataExtensionRow>();
+                if (row.getColumn("id").equals("3")) {
+                    result.setStatus(ETResult.Status.ERROR);
+                } else {
+                    result.setStatus(ETResult.Status.OK);
+                    result.setObject(row);
+                }
+                response.addResult(result);
+            }
+            return response;
+        }
+    }
+
+    @Test
+    public void testBatchSize()
+        throws ETSdkException
+    {
+        TestBatch batch = new TestBatch(1);
+        ETBulkResponse<ETDataExtensionRow> response =
+                new ETBulkOperation<ETDataExtensionRow>(executor, 5, 1000, 2)
+                        .execute(createRows(23).iterator(), batch);
+        assertEquals(23, response.getObjectCount());
+        assertEquals(5, response.getBatchCount());
+        assertTrue(batch.maxInFlight <= 2);
+        // only the results of the failed rows (3 and 10-14) are kept
+        assertEquals(6, response.getResults().size());
+        assertEquals(6, response.getFailedObjects().size());
+        assertEquals("3", response.getFailedObjects().get(0).getColumn("id"));
+        assertEquals("14", response.getFailedObjects().get(5).getColumn("id"));
+    }
+
+    @Test
+    public void testBatchBytes()
+        throws ETSdkException
+    {
+        TestBatch batch = new TestBatch(100);
+        ETBulkResponse<ETDataExtensionRow> response =
+                new ETBulkOperation<ETDataExtensionRow>(executor, 5, 250, 4)
+                        .execute(createRows(7).iterator(), batch);
+        assertEquals(4, response.getBatchCount());
+        for (int size : batch.batchSizes) {
+            assertTrue(size <= 2);
+        }
+    }
+
+    @Test
+    public void testFailedObjects()
+        throws ETSdkException
+    {
+        TestBatch batch = new TestBatch(1);
+        ETBulkResponse<ETDataExtensionRow> response =
+                new ETBulkOperation<ETDataExtensionRow>(executor, 5, 1000, 3)
+                        .execute(createRows(20).iterator(), batch);
+        assertEquals(ETResult.Status.ERROR, response.getStatus());
+        // row 3 failed, and so did the whole batch starting with row 10
+        List<ETDataExtensionRow> failed = response.getFailedObjects();
+        assertEquals(6, failed.size());
+        assertEquals("3", failed.get(0).getColumn("id"));
+        assertEquals("10", failed.get(1).getColumn("id"));
+        assertEquals("14", failed.get(5).getColumn("id"));
+        assertEquals(6, response.getResults().size());
+    }
+}
@@ -0,0 +1,165 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ETDataExtensionPageTest {
+    private static final int ROWS = 2500;
+    private static final int COLUMNS = 30;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETDataExtensionPageTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    private static Map<String, String> createValues(int row) {
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        for (int column = 0; column < COLUMNS; column++) {
+            // even columns are unique, odd columns have 4 distinct values
+            // (new instances, like values parsed off the wire)
+            String value = column % 2 == 0
+                    ? "value " + row + "/" + column
+                    : new String("status " + row % 4);
+            values.put("Column" + column, value);
+        }
+        return values;
+    }
+
+    private static ETDataExtensionPage createPage(int rows) {
+        ETDataExtensionPage.Builder builder = new ETDataExtensionPage.Builder();
+        for (int row = 0; row < rows; row++) {
+            builder.addRow(createValues(row));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testValues() {
+        ETDataExtensionPage page = createPage(ROWS);
+        assertEquals(ROWS, page.size());
+        assertEquals(COLUMNS, page.getColumnNames().size());
+        assertEquals("column0", page.getColumnNames().get(0));
+        assertEquals("value 17/0", page.get(17).getColumn("Column0"));
+        assertEquals("status 1", page.get(17).getColumn("COLUMN1"));
+        assertEquals("status 3", page.getValue(ROWS - 1, "column29"));
+        assertNull(page.get(0).getColumn("nonexistent"));
+        int count = 0;
+        for (ETDataExtensionPage.Row row : page) {
+            assertEquals("value " + count + "/2", row.getColumn("column2"));
+            count++;
+        }
+        assertEquals(ROWS, count);
+    }
+
+    @Test
+    public void testMissingValues() {
+        ETDataExtensionPage.Builder builder = new ETDataExtensionPage.Builder();
+        Map<String, String> first = new LinkedHashMap<String, String>();
+        first.put("a", "1");
+        builder.addRow(first);
+        Map<String, String> second = new LinkedHashMap<String, String>();
+        second.put("b", "2");
+        builder.addRow(second);
+        ETDataExtensionPage page = builder.build();
+        assertEquals("1", page.get(0).getColumn("a"));
+        assertNull(page.get(0).getColumn("b"));
+        assertNull(page.get(1).getColumn("a"));
+        assertEquals("2", page.get(1).getColumn("b"));
+    }
+
+    @Test
+    public void testMissingTrailingValues() {
+        // more rows than the initial capacity of a column
+        ETDataExtensionPage.Builder builder = new ETDataExtensionPage.Builder();
+        for (int row = 0; row < 40; row++) {
+            Map<String, String> values = new LinkedHashMap<String, String>();
+            values.put("a", "value " + row % 2);
+            if (row < 10) {
+                values.put("b", "status");
+            }
+            if (row < 30) {
+                values.put("c", "unique " + row);
+            }
+            builder.addRow(values);
+        }
+        ETDataExtensionPage page = builder.build();
+        assertEquals(40, page.size());
+        assertTrue(page.isDictionaryEncoded("b"));
+        assertFalse(page.isDictionaryEncoded("c"));
+        assertEquals("status", page.get(9).getColumn("b"));
+        assertNull(page.get(10).getColumn("b"));
+        assertNull(page.get(39).getColumn("b"));
+        assertEquals("unique 29", page.get(29).getColumn("c"));
+        assertNull(page.get(39).getColumn("c"));
+        assertEquals("value 1", page.get(39).getColumn("a"));
+    }
+
+    @Test
+    public void testToRow() {
+        ETDataExtensionRow row = createPage(10).get(3).toRow();
+        assertEquals("value 3/0", row.getColumn("column0"));
+        assertEquals("status 3", row.getColumn("column1"));
+        assertEquals(COLUMNS, row.getColumnNames().size());
+    }
+
+    @Test
+    public void testEncoding() {
+        ETDataExtensionPage page = createPage(ROWS);
+        // unique values are stored as is, repeated ones in a dictionary
+        assertFalse(page.isDictionaryEncoded("column0"));
+        assertTrue(page.isDictionaryEncoded("column1"));
+        assertFalse(page.isDictionaryEncoded("nonexistent"));
+        // equal values parsed into separate instances share one instance
+        assertSame(page.get(1).getColumn("column1"), page.get(5).getColumn("column1"));
+        // the column names are held once per page, not once per row
+        assertSame(page.getColumnNames(), page.get(0).getColumnNames());
+        assertSame(page.get(0).getColumnNames(), page.get(ROWS - 1).getColumnNames());
+    }
+}
@@ -0,0 +1,182 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ETDataExtensionSchemaCacheTest {
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETDataExtensionSchemaCacheTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    private static class TestLoader implements ETDataExtensionSchemaCache.Loader {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Override
+        public List<ETDataExtensionColumn> load(String key) {
+            loads.incrementAndGet();
+            List<ETDataExtensionColumn> columns = new ArrayList<ETDataExtensionColumn>();
+            ETDataExtensionColumn column = new ETDataExtensionColumn();
+            column.setName(key + "_column");
+            columns.add(column);
+            return columns;
+        }
+    }
+
+    @Test
+    public void testHitsAndMisses()
+        throws ETSdkException
+    {
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 10);
+        TestLoader loader = new TestLoader();
+        cache.get("key1", loader);
+        cache.get("key1", loader);
+        cache.get("KEY1", loader);
+        assertEquals("key1_column", cache.get("key1", loader).get(0).getName());
+        assertEquals(1, loader.loads.get());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidate()
+        throws ETSdkException
+    {
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 10);
+        TestLoader loader = new TestLoader();
+        cache.get("key1", loader);
+        cache.invalidate("key1");
+        cache.get("key1", loader);
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testExpiry()
+        throws ETSdkException, InterruptedException
+    {
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(20, 10);
+        TestLoader loader = new TestLoader();
+        cache.get("key1", loader);
+        Thread.sleep(40);
+        cache.get("key1", loader);
+        assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testEviction()
+        throws ETSdkException
+    {
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 2);
+        TestLoader loader = new TestLoader();
+        cache.get("key1", loader);
+        cache.get("key2", loader);
+        cache.get("key1", loader); // key2 is now least recently used
+        cache.get("key3", loader);
+        assertEquals(2, cache.size());
+        cache.get("key1", loader);
+        assertEquals(3, loader.loads.get());
+        cache.get("key2", loader);
+        assertEquals(4, loader.loads.get());
+    }
+
+    @Test
+    public void testCopies()
+        throws ETSdkException
+    {
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 10);
+        TestLoader loader = new TestLoader();
+        cache.get("key1", loader).clear();
+        assertEquals(1, cache.get("key1", loader).size());
+        cache.get("key1", loader).get(0).setName("changed");
+        assertEquals("key1_column", cache.get("key1", loader).get(0).getName());
+    }
+
+    @Test
+    public void testCopiesKeepClient()
+        throws ETSdkException
+    {
+        final ETClient client = new ETClient("/fuelsdk-test.properties");
+        ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 10);
+        ETDataExtensionSchemaCache.Loader loader = new ETDataExtensionSchemaCache.Loader() {
+            @Override
+            public List<ETDataExtensionColumn> load(String key) {
+                ETDataExtensionColumn column = new ETDataExtensionColumn();
+                column.setClient(client);
+                column.setName(key + "_column");
+                List<ETDataExtensionColumn> columns = new ArrayList<ETDataExtensionColumn>();
+                columns.add(column);
+                return columns;
+            }
+        };
+        // both the miss and the hit return columns with the client
+        assertSame(client, cache.get("key1", loader).get(0).getClient());
+        assertSame(client, cache.get("key1", loader).get(0).getClient());
+    }
+
+    @Test
+    public void testInvalidateDuringLoad()
+        throws ETSdkException
+    {
+        final ETDataExtensionSchemaCache cache = new ETDataExtensionSchemaCache(60000, 10);
+        final TestLoader loader = new TestLoader();
+        cache.get("key1", new ETDataExtensionSchemaCache.Loader() {
+            @Override
+            public List<ETDataExtensionColumn> load(String key)
+                throws ETSdkException
+            {
+                // the data extension changes while its columns are retrieved
+                List<ETDataExtensionColumn> columns = loader.load(key);
+                cache.invalidate(key);
+                return columns;
+            }
+        });
+        assertEquals(0, cache.size());
+        cache.get("key1", loader);
+        assertEquals(2, loader.loads.get());
+    }
+}
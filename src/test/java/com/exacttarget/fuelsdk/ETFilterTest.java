@@ -43,6 +43,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ETFilterTest {
@@ -434,6 +435,31 @@ public class ETFilterTest {
         assertTrue(filter.getOrderByAsc());
     }
 
+    //
+    // Test compiled plans:
+    //
+
+    @Test
+    public void testParsedFiltersAreIndependent()
+        throws ETSdkException
+    {
+        ETFilter filter1 = ETFilter.parse("foo = 'bar' and baz = 'qux'", "foo");
+        filter1.getExpression().getSubexpressions().get(0).setProperty("quux");
+        filter1.addProperty("baz");
+        ETFilter filter2 = ETFilter.parse("foo = 'bar' and baz = 'qux'", "foo");
+        assertEquals("foo", filter2.getExpression().getSubexpressions().get(0).getProperty());
+        assertEquals(1, filter2.getProperties().size());
+        assertEquals("foo", filter2.getProperties().get(0));
+    }
+
+    @Test
+    public void testPlansAreCached()
+        throws ETSdkException
+    {
+        assertSame(ETFilterPlan.compile("foo = 'bar'", "order by foo"),
+                   ETFilterPlan.compile("foo = 'bar'", "order by foo"));
+    }
+
     private void assertSuccessOrderedSubset(ETFilter filter) {
         assertNotNull(filter.getExpression());
         assertNull(filter.getExpression().getProperty());
@@ -0,0 +1,251 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ETKeyLookupTest {
+    private static ExecutorService executor = null;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETKeyLookupTest.class
+                .getResource("/fuelsdk-test.properties"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ETConfiguration createConfiguration(int batchSize) {
+        ETConfiguration configuration = new ETConfiguration();
+        configuration.set("lookupBatchSize", Integer.toString(batchSize));
+        return configuration;
+    }
+
+    //
+    // Answers each batch from the filter it was sent with, like the
+    // server would, plus an object that wasn't asked for:
+    //
+
+    private static class TestLookup<T extends ETApiObject> extends ETKeyLookup<T> {
+        private final List<ETExpression> expressions =
+                Collections.synchronizedList(new ArrayList<ETExpression>());
+        private final Factory<T> factory;
+
+        private TestLookup(ETConfiguration configuration,
+                           Class<T> type,
+                           String property,
+                           Factory<T> factory)
+            throws ETSdkException
+        {
+            super(null, executor, configuration, type, property);
+            this.factory = factory;
+        }
+
+        @Override
+        ETPagingIterator.PageSource<T> createPageSource(final ETFilter filter) {
+            expressions.add(filter.getExpression());
+            return new ETPagingIterator.PageSource<T>() {
+                @Override
+                public ETResponse<T> retrievePage(ETResponse<T> previous) {
+                    ETResponse<T> response = new ETResponse<T>();
+                    response.setStatus(ETResult.Status.OK);
+                    for (String value : filter.getExpression().getValues()) {
+                        if (!value.startsWith("missing")) {
+                            // the server doesn't preserve the case of keys
+                            addObject(response, factory.create(value.toUpperCase()));
+                        }
+                    }
+                    addObject(response, factory.create("unrequested"));
+                    return response;
+                }
+            };
+        }
+
+        private void addObject(ETResponse<T> response, T object) {
+            ETResult<T> result = new ETResult<T>();
+            result.setObject(object);
+            response.addResult(result);
+        }
+    }
+
+    private interface Factory<T> {
+        T create(String key);
+    }
+
+    @Test
+    public void testExecute()
+        throws ETSdkException
+    {
+        TestLookup<ETSubscriber> lookup = new TestLookup<ETSubscriber>(
+                createConfiguration(2), ETSubscriber.class, "key",
+                new Factory<ETSubscriber>() {
+            @Override
+            public ETSubscriber create(String key) {
+                ETSubscriber subscriber = new ETSubscriber();
+                subscriber.setKey(key);
+                return subscriber;
+            }
+        });
+        Map<String, ETSubscriber> subscribers =
+                lookup.execute(Arrays.asList("a", "b", "missing", "c", "a", null));
+        assertEquals(2, lookup.expressions.size());
+        for (ETExpression expression : lookup.expressions) {
+            assertEquals("key", expression.getProperty());
+            assertEquals(ETExpression.Operator.IN, expression.getOperator());
+        }
+        assertEquals(3, subscribers.size());
+        assertEquals("A", subscribers.get("a").getKey());
+        assertEquals("C", subscribers.get("c").getKey());
+        assertFalse(subscribers.containsKey("missing"));
+        assertFalse(subscribers.containsKey("unrequested"));
+        assertFalse(subscribers.containsKey("UNREQUESTED"));
+    }
+
+    @Test
+    public void testKeysDifferingInCase()
+        throws ETSdkException
+    {
+        TestLookup<ETSubscriber> lookup = new TestLookup<ETSubscriber>(
+                createConfiguration(10), ETSubscriber.class, "key",
+                new Factory<ETSubscriber>() {
+            @Override
+            public ETSubscriber create(String key) {
+                ETSubscriber subscriber = new ETSubscriber();
+                subscriber.setKey(key);
+                return subscriber;
+            }
+        });
+        Map<String, ETSubscriber> subscribers =
+                lookup.execute(Arrays.asList("abc", "ABC", "Abc"));
+        // the server returns "ABC" for each of them
+        assertEquals(3, subscribers.size());
+        assertEquals("ABC", subscribers.get("abc").getKey());
+        assertEquals("ABC", subscribers.get("ABC").getKey());
+        assertEquals("ABC", subscribers.get("Abc").getKey());
+    }
+
+    @Test
+    public void testExecuteRestByPrimaryKey()
+        throws ETSdkException
+    {
+        TestLookup<ETCampaign> lookup = new TestLookup<ETCampaign>(
+                createConfiguration(100), ETCampaign.class, "id",
+                new Factory<ETCampaign>() {
+            @Override
+            public ETCampaign create(String key) {
+                ETCampaign campaign = new ETCampaign();
+                campaign.setId(key);
+                return campaign;
+            }
+        });
+        Map<String, ETCampaign> campaigns =
+                lookup.execute(Arrays.asList("1", "2", "3"));
+        // one GET per key, regardless of lookupBatchSize
+        assertEquals(3, lookup.expressions.size());
+        for (ETExpression expression : lookup.expressions) {
+            assertEquals("id", expression.getProperty());
+            assertEquals(ETExpression.Operator.EQUALS, expression.getOperator());
+            assertEquals(1, expression.getValues().size());
+        }
+        assertEquals(3, campaigns.size());
+        assertTrue(campaigns.containsKey("2"));
+    }
+
+    @Test(expected = ETSdkException.class)
+    public void testRestByOtherProperty()
+        throws ETSdkException
+    {
+        new ETKeyLookup<ETCampaign>(null, executor, createConfiguration(100),
+                ETCampaign.class, "name");
+    }
+
+    @Test
+    public void testSplitByCount() {
+        List<List<String>> batches = ETKeyLookup.split(
+                Arrays.asList("a", "b", "c", "d", "e"), 2, 1000);
+        assertEquals(3, batches.size());
+        assertEquals(Arrays.asList("a", "b"), batches.get(0));
+        assertEquals(Arrays.asList("e"), batches.get(2));
+    }
+
+    @Test
+    public void testSplitBySoapSize() {
+        // each key takes 3 + 15 bytes in the envelope
+        List<List<String>> batches = ETKeyLookup.split(
+                Arrays.asList("aaa", "bbb", "ccc"), 100, 40);
+        assertEquals(2, batches.size());
+        assertEquals(Arrays.asList("aaa", "bbb"), batches.get(0));
+    }
+
+    @Test
+    public void testOversizedKey() {
+        List<List<String>> batches = ETKeyLookup.split(
+                Arrays.asList("aaaaaaaaaa", "b"), 100, 5);
+        assertEquals(2, batches.size());
+        assertEquals(Arrays.asList("aaaaaaaaaa"), batches.get(0));
+    }
+
+    @Test
+    public void testPrimaryKeyPathSegment()
+        throws ETSdkException
+    {
+        // REST keys are sent as path/key
+        assertEquals("a%20b%2Fc%3Fd%26e%2Bf", ETRestObject.toPathSegment("a b/c?d&e+f"));
+        assertEquals("123", ETRestObject.toPathSegment("123"));
+    }
+}
@@ -0,0 +1,162 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ETOperationRegistryTest {
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETOperationRegistryTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    private static final ETSdkException FAILURE = new ETSdkException("failure");
+
+    public static abstract class TestSoapObject extends ETSoapObject {
+        public static <T extends ETSoapObject> ETResponse<T> retrieve(ETClient client,
+                                                                      Class<T> type,
+                                                                      Integer page,
+                                                                      Integer pageSize,
+                                                                      String continueRequest,
+                                                                      ETFilter filter)
+            throws ETSdkException
+        {
+            if (continueRequest != null && continueRequest.equals("fail")) {
+                throw FAILURE;
+            }
+            ETResponse<T> response = new ETResponse<T>();
+            response.setRequestId("retrieve " + type.getSimpleName()
+                    + " " + pageSize + " " + continueRequest);
+            return response;
+        }
+
+        public static <T extends ETSoapObject> ETResponse<T> create(ETClient client,
+                                                                    List<T> objects)
+            throws ETSdkException
+        {
+            ETResponse<T> response = new ETResponse<T>();
+            response.setRequestId("create " + objects.size());
+            return response;
+        }
+    }
+
+    public static abstract class TestSoapSubclass extends TestSoapObject {
+    }
+
+    public static abstract class TestRestObject extends ETRestObject {
+        public static <T extends ETRestObject> ETResponse<T> retrieve(ETClient client,
+                                                                      Class<T> type,
+                                                                      Integer page,
+                                                                      Integer pageSize,
+                                                                      ETFilter filter)
+            throws ETSdkException
+        {
+            ETResponse<T> response = new ETResponse<T>();
+            response.setRequestId("retrieve " + type.getSimpleName() + " " + page);
+            return response;
+        }
+    }
+
+    @Test
+    public void testRetrieveInherited()
+        throws ETSdkException
+    {
+        ETResponse<TestSoapSubclass> response = ETOperationRegistry.get(TestSoapSubclass.class)
+                .retrieve(null, null, 10, "id", new ETFilter());
+        assertEquals("retrieve TestSoapSubclass 10 id", response.getRequestId());
+    }
+
+    @Test
+    public void testRetrieveWithoutContinueRequest()
+        throws ETSdkException
+    {
+        ETOperationRegistry.Operations operations = ETOperationRegistry.get(TestRestObject.class);
+        ETResponse<TestRestObject> response = operations.retrieve(null, 2, 10, null, new ETFilter());
+        assertEquals("retrieve TestRestObject 2", response.getRequestId());
+        try {
+            operations.retrieve(null, 2, 10, "id", new ETFilter());
+            fail();
+        } catch (ETSdkException ex) {
+            // continue requests aren't supported
+        }
+    }
+
+    @Test
+    public void testCreate()
+        throws ETSdkException
+    {
+        List<TestSoapSubclass> objects = new ArrayList<TestSoapSubclass>();
+        ETResponse<TestSoapSubclass> response = ETOperationRegistry.get(TestSoapSubclass.class)
+                .create(null, objects);
+        assertEquals("create 0", response.getRequestId());
+    }
+
+    @Test
+    public void testExceptionIsRethrown() {
+        try {
+            ETOperationRegistry.get(TestSoapObject.class)
+                    .retrieve(null, null, null, "fail", new ETFilter());
+            fail();
+        } catch (ETSdkException ex) {
+            assertSame(FAILURE, ex);
+        }
+    }
+
+    @Test(expected = ETSdkException.class)
+    public void testMissingOperation()
+        throws ETSdkException
+    {
+        ETOperationRegistry.get(ETApiObject.class)
+                .create(null, new ArrayList<ETApiObject>());
+    }
+
+    @Test
+    public void testOperationsAreCached() {
+        assertSame(ETOperationRegistry.get(TestSoapObject.class),
+                   ETOperationRegistry.get(TestSoapObject.class));
+    }
+}
@@ -0,0 +1,146 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ETPagingIteratorTest {
+    private static ExecutorService executor = null;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETPagingIteratorTest.class
+                .getResource("/fuelsdk-test.properties"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class TestPageSource implements ETPagingIterator.PageSource<ETSubscriber> {
+        private final int pages;
+        private final int pageSize;
+        private final AtomicInteger retrieved = new AtomicInteger();
+
+        private TestPageSource(int pages, int pageSize) {
+            this.pages = pages;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public ETResponse<ETSubscriber> retrievePage(ETResponse<ETSubscriber> previous) {
+            int page = previous == null ? 1 : previous.getPage() + 1;
+            retrieved.incrementAndGet();
+            ETResponse<ETSubscriber> response = new ETResponse<ETSubscriber>();
+            response.setStatus(ETResult.Status.OK);
+            response.setPage(page);
+            for (int i = 0; i < pageSize; i++) {
+                ETSubscriber subscriber = new ETSubscriber();
+                subscriber.setKey(Integer.toString((page - 1) * pageSize + i));
+                ETResult<ETSubscriber> result = new ETResult<ETSubscriber>();
+                result.setObject(subscriber);
+                response.addResult(result);
+            }
+            response.setMoreResults(page < pages);
+            return response;
+        }
+    }
+
+    @Test
+    public void testIteratesAllPagesInOrder() {
+        TestPageSource source = new TestPageSource(3, 4);
+        ETPagingIterator<ETSubscriber> iterator =
+                new ETPagingIterator<ETSubscriber>(source, executor);
+        int count = 0;
+        while (iterator.hasNext()) {
+            assertEquals(Integer.toString(count), iterator.next().getKey());
+            count++;
+        }
+        assertEquals(12, count);
+        assertEquals(3, source.retrieved.get());
+    }
+
+    @Test
+    public void testEmpty() {
+        TestPageSource source = new TestPageSource(1, 0);
+        ETPagingIterator<ETSubscriber> iterator =
+                new ETPagingIterator<ETSubscriber>(source, executor);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testClose() {
+        TestPageSource source = new TestPageSource(100, 2);
+        ETPagingIterator<ETSubscriber> iterator =
+                new ETPagingIterator<ETSubscriber>(source, executor);
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        // at most the first page and one prefetched page
+        assertTrue(source.retrieved.get() <= 2);
+    }
+
+    @Test(expected = ETSdkRuntimeException.class)
+    public void testError() {
+        ETPagingIterator<ETSubscriber> iterator =
+                new ETPagingIterator<ETSubscriber>(new ETPagingIterator.PageSource<ETSubscriber>() {
+            @Override
+            public ETResponse<ETSubscriber> retrievePage(ETResponse<ETSubscriber> previous)
+                throws ETSdkException
+            {
+                throw new ETSdkException("test");
+            }
+        }, executor);
+        iterator.hasNext();
+    }
+}
@@ -0,0 +1,149 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import com.exacttarget.fuelsdk.internal.ComplexFilterPart;
+import com.exacttarget.fuelsdk.internal.LogicalOperators;
+import com.exacttarget.fuelsdk.internal.SimpleFilterPart;
+import com.exacttarget.fuelsdk.internal.SimpleOperators;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ETPreparedQueryTest {
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETPreparedQueryTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    @Test
+    public void testParameterCount()
+        throws ETSdkException
+    {
+        ETPreparedQuery<ETSubscriber> query = new ETPreparedQuery<ETSubscriber>(null,
+                ETSubscriber.class, null, "emailAddress = ? and key in ('foo', ?)");
+        assertEquals(2, query.getParameterCount());
+    }
+
+    @Test
+    public void testQuotedParameter()
+        throws ETSdkException
+    {
+        ETPreparedQuery<ETSubscriber> query = new ETPreparedQuery<ETSubscriber>(null,
+                ETSubscriber.class, null, "emailAddress = '?' or key = ?");
+        assertEquals(1, query.getParameterCount());
+    }
+
+    @Test
+    public void testNoFilter()
+        throws ETSdkException
+    {
+        ETPreparedQuery<ETSubscriber> query = new ETPreparedQuery<ETSubscriber>(null,
+                ETSubscriber.class, null, "emailAddress");
+        assertEquals(0, query.getParameterCount());
+    }
+
+    @Test(expected = ETSdkException.class)
+    public void testOrderByNotSupported()
+        throws ETSdkException
+    {
+        new ETPreparedQuery<ETSubscriber>(null, ETSubscriber.class, null,
+                "emailAddress = ?", "order by emailAddress");
+    }
+
+    @Test(expected = ETSdkException.class)
+    public void testWrongNumberOfValues()
+        throws ETSdkException
+    {
+        new ETPreparedQuery<ETSubscriber>(null, ETSubscriber.class, null,
+                "emailAddress = ?").execute();
+    }
+
+    private static SimpleFilterPart createSimpleFilterPart(String property,
+                                                           SimpleOperators operator,
+                                                           String... values)
+    {
+        SimpleFilterPart simpleFilterPart = new SimpleFilterPart();
+        simpleFilterPart.setProperty(property);
+        simpleFilterPart.setSimpleOperator(operator);
+        for (String value : values) {
+            simpleFilterPart.getValue().add(value);
+        }
+        return simpleFilterPart;
+    }
+
+    @Test
+    public void testBind() {
+        //
+        // The template of "EmailAddress = ? and CustomerKey in ('?', ?)",
+        // where only the unquoted ? values are parameters:
+        //
+
+        ComplexFilterPart template = new ComplexFilterPart();
+        template.setLeftOperand(createSimpleFilterPart("EmailAddress",
+                SimpleOperators.EQUALS, ETExpression.PARAMETER));
+        template.setLogicalOperator(LogicalOperators.AND);
+        template.setRightOperand(createSimpleFilterPart("CustomerKey",
+                SimpleOperators.IN, "?", ETExpression.PARAMETER));
+        assertEquals(2, ETPreparedQuery.countParameters(template));
+
+        ComplexFilterPart bound = (ComplexFilterPart) ETPreparedQuery.bind(template,
+                new String[] { "foo@example.com", "bar" }, new int[1]);
+        assertNotSame(template, bound);
+        assertEquals(LogicalOperators.AND, bound.getLogicalOperator());
+        SimpleFilterPart left = (SimpleFilterPart) bound.getLeftOperand();
+        assertEquals("EmailAddress", left.getProperty());
+        assertEquals(SimpleOperators.EQUALS, left.getSimpleOperator());
+        assertEquals(1, left.getValue().size());
+        assertEquals("foo@example.com", left.getValue().get(0));
+        SimpleFilterPart right = (SimpleFilterPart) bound.getRightOperand();
+        assertEquals("CustomerKey", right.getProperty());
+        assertEquals(SimpleOperators.IN, right.getSimpleOperator());
+        assertEquals(2, right.getValue().size());
+        assertEquals("?", right.getValue().get(0));
+        assertEquals("bar", right.getValue().get(1));
+
+        // the template is left as is
+        assertSame(ETExpression.PARAMETER,
+                ((SimpleFilterPart) template.getLeftOperand()).getValue().get(0));
+    }
+}
@@ -0,0 +1,284 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ETPublisherTest {
+    private static ExecutorService executor = null;
+
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETPublisherTest.class
+                .getResource("/fuelsdk-test.properties"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class TestPageSource implements ETPagingIterator.PageSource<ETSubscriber> {
+        private final int pages;
+        private final int pageSize;
+        private final int failingPage;
+        private final AtomicInteger retrieved = new AtomicInteger();
+
+        private TestPageSource(int pages, int pageSize, int failingPage) {
+            this.pages = pages;
+            this.pageSize = pageSize;
+            this.failingPage = failingPage;
+        }
+
+        @Override
+        public ETResponse<ETSubscriber> retrievePage(ETResponse<ETSubscriber> previous)
+            throws ETSdkException
+        {
+            int page = previous == null ? 1 : previous.getPage() + 1;
+            retrieved.incrementAndGet();
+            if (page == failingPage) {
+                throw new ETSdkException("page " + page + " failed");
+            }
+            ETResponse<ETSubscriber> response = new ETResponse<ETSubscriber>();
+            response.setStatus(ETResult.Status.OK);
+            response.setPage(page);
+            for (int i = 0; i < pageSize; i++) {
+                ETSubscriber subscriber = new ETSubscriber();
+                subscriber.setKey(Integer.toString((page - 1) * pageSize + i));
+                ETResult<ETSubscriber> result = new ETResult<ETSubscriber>();
+                result.setObject(subscriber);
+                response.addResult(result);
+            }
+            response.setMoreResults(page < pages);
+            return response;
+        }
+    }
+
+    private static class TestSubscriber implements ETPublisher.Subscriber<ETSubscriber> {
+        private final List<String> keys = new CopyOnWriteArrayList<String>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final CountDownLatch received;
+        private final long initialRequest;
+        private volatile ETPublisher.Subscription subscription = null;
+        private volatile Throwable error = null;
+        private volatile boolean completed = false;
+
+        private TestSubscriber(long initialRequest, int expected) {
+            this.initialRequest = initialRequest;
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onSubscribe(ETPublisher.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ETSubscriber item) {
+            keys.add(item.getKey());
+            received.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+
+    @Test
+    public void testPublishesAllObjectsInOrder()
+        throws InterruptedException
+    {
+        TestPageSource source = new TestPageSource(3, 4, 0);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 12);
+        new ETPublisher<ETSubscriber>(source, executor, 2).subscribe(subscriber);
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertEquals(12, subscriber.keys.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(Integer.toString(i), subscriber.keys.get(i));
+        }
+        assertEquals(3, source.retrieved.get());
+    }
+
+    @Test
+    public void testRetrievesOnlyOnDemand()
+        throws InterruptedException
+    {
+        TestPageSource source = new TestPageSource(10, 5, 0);
+        TestSubscriber subscriber = new TestSubscriber(3, 3);
+        new ETPublisher<ETSubscriber>(source, executor, 2).subscribe(subscriber);
+        assertTrue(subscriber.received.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // 3 objects requested, so only the first page is retrieved
+        assertEquals(1, source.retrieved.get());
+        assertEquals(3, subscriber.keys.size());
+
+        subscriber.subscription.request(10);
+        Thread.sleep(100);
+        assertEquals(13, subscriber.keys.size());
+        assertEquals(3, source.retrieved.get());
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    public void testCancelStopsRetrieving()
+        throws InterruptedException
+    {
+        TestPageSource source = new TestPageSource(10, 5, 0);
+        TestSubscriber subscriber = new TestSubscriber(5, 5);
+        new ETPublisher<ETSubscriber>(source, executor, 2).subscribe(subscriber);
+        assertTrue(subscriber.received.await(5, TimeUnit.SECONDS));
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+        Thread.sleep(100);
+        assertEquals(1, source.retrieved.get());
+        assertEquals(5, subscriber.keys.size());
+    }
+
+    //
+    // Cancels the subscription just before a retrieve is submitted
+    // (as if cancel() raced it), and runs the retrieve a little later:
+    //
+
+    private static class CancellingExecutor extends AbstractExecutorService {
+        private final ScheduledExecutorService scheduler =
+                Executors.newSingleThreadScheduledExecutor();
+        private volatile TestSubscriber subscriber = null;
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            subscriber.subscription.cancel();
+            FutureTask<Object> future = new FutureTask<Object>(task, null);
+            scheduler.schedule(future, 100, TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            executor.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            scheduler.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return scheduler.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return scheduler.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return scheduler.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException
+        {
+            return scheduler.awaitTermination(timeout, unit);
+        }
+    }
+
+    @Test
+    public void testCancelDuringRetrieveSubmission()
+        throws InterruptedException
+    {
+        TestPageSource source = new TestPageSource(10, 5, 0);
+        TestSubscriber subscriber = new TestSubscriber(5, 5);
+        CancellingExecutor cancellingExecutor = new CancellingExecutor();
+        cancellingExecutor.subscriber = subscriber;
+        try {
+            new ETPublisher<ETSubscriber>(source, cancellingExecutor, 2).subscribe(subscriber);
+            Thread.sleep(300);
+            // the retrieve submitted after cancel() never ran
+            assertEquals(0, source.retrieved.get());
+            assertEquals(0, subscriber.keys.size());
+        } finally {
+            cancellingExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testError()
+        throws InterruptedException
+    {
+        TestPageSource source = new TestPageSource(3, 4, 2);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 4);
+        new ETPublisher<ETSubscriber>(source, executor, 2).subscribe(subscriber);
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        // objects of the first page are delivered before the error
+        assertEquals(4, subscriber.keys.size());
+        assertTrue(subscriber.error instanceof ETSdkException);
+    }
+}
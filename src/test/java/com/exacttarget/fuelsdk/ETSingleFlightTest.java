@@ -0,0 +1,325 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ETSingleFlightTest {
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETSingleFlightTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    @Test
+    public void testIdenticalCallsAreCoalesced()
+        throws Exception
+    {
+        final ETSingleFlight singleFlight = new ETSingleFlight();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final Object result = new Object();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                        @Override
+                        public Object load()
+                            throws ETSdkException
+                        {
+                            loads.incrementAndGet();
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                throw new ETSdkException("interrupted", ex);
+                            }
+                            return result;
+                        }
+                    });
+                }
+            });
+            started.await();
+            Future<Object> second = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                        @Override
+                        public Object load() {
+                            loads.incrementAndGet();
+                            return new Object();
+                        }
+                    });
+                }
+            });
+            while (singleFlight.getCoalescedCount() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            assertSame(result, first.get());
+            assertSame(result, second.get());
+            assertEquals(1, loads.get());
+            assertEquals(1, singleFlight.getCoalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletedCallsAreNotCached()
+        throws ETSdkException
+    {
+        ETSingleFlight singleFlight = new ETSingleFlight();
+        final AtomicInteger loads = new AtomicInteger();
+        ETSingleFlight.Loader<Integer> loader = new ETSingleFlight.Loader<Integer>() {
+            @Override
+            public Integer load() {
+                return loads.incrementAndGet();
+            }
+        };
+        assertEquals(1, (int) singleFlight.execute("key", loader));
+        assertEquals(2, (int) singleFlight.execute("key", loader));
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void testExceptionIsShared()
+        throws Exception
+    {
+        final ETSingleFlight singleFlight = new ETSingleFlight();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                        @Override
+                        public Object load()
+                            throws ETSdkException
+                        {
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                throw new ETSdkException("interrupted", ex);
+                            }
+                            throw new ETSdkException("failure");
+                        }
+                    });
+                }
+            });
+            started.await();
+            Future<Object> second = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                        @Override
+                        public Object load() {
+                            return new Object();
+                        }
+                    });
+                }
+            });
+            while (singleFlight.getCoalescedCount() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<Object> future : new Future[] { first, second }) {
+                try {
+                    future.get();
+                    fail();
+                } catch (ExecutionException ex) {
+                    assertTrue(ex.getCause() instanceof ETSdkException);
+                    assertEquals("failure", ex.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelledCallIsRetried()
+        throws Exception
+    {
+        final ETSingleFlight singleFlight = new ETSingleFlight();
+        final CountDownLatch started = new CountDownLatch(1);
+        final ETCallContext context = new ETCallContext(0);
+        final Object result = new Object();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    context.attach();
+                    try {
+                        return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                            @Override
+                            public Object load()
+                                throws ETSdkException
+                            {
+                                started.countDown();
+                                try {
+                                    new CountDownLatch(1).await();
+                                } catch (InterruptedException ex) {
+                                    throw new ETSdkException("call cancelled", ex);
+                                }
+                                return new Object();
+                            }
+                        });
+                    } finally {
+                        context.detach();
+                    }
+                }
+            });
+            started.await();
+            Future<Object> second = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call()
+                    throws Exception
+                {
+                    return singleFlight.execute("key", new ETSingleFlight.Loader<Object>() {
+                        @Override
+                        public Object load() {
+                            return result;
+                        }
+                    });
+                }
+            });
+            while (singleFlight.getCoalescedCount() == 0) {
+                Thread.sleep(10);
+            }
+            context.cancel();
+            try {
+                first.get();
+                fail();
+            } catch (ExecutionException ex) {
+                assertEquals("call cancelled", ex.getCause().getMessage());
+            }
+            // the waiting caller made the call itself
+            assertSame(result, second.get());
+            assertEquals(0, singleFlight.getCoalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRetrieveKey() {
+        ETFilter filter1 = new ETFilter();
+        filter1.addProperty("foo");
+        filter1.addProperty("bar");
+        ETFilter filter2 = new ETFilter();
+        filter2.addProperty("bar");
+        filter2.addProperty("foo");
+        assertEquals(ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter1),
+                     ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter2));
+        assertNotEquals(ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter1),
+                        ETSingleFlight.retrieveKey(ETSubscriber.class, null, 10, null, filter1));
+        assertNotEquals(ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter1),
+                        ETSingleFlight.retrieveKey(ETList.class, null, null, null, filter1));
+    }
+
+    @Test
+    public void testRetrieveKeyDistinguishesNesting() {
+        // a or (b and c) vs. (a or b) and c
+        ETExpression a = equals("a", "1");
+        ETExpression b = equals("b", "2");
+        ETExpression c = equals("c", "3");
+        ETFilter filter1 = new ETFilter();
+        filter1.setExpression(combine(ETExpression.Operator.OR, a,
+                combine(ETExpression.Operator.AND, b, c)));
+        ETFilter filter2 = new ETFilter();
+        filter2.setExpression(combine(ETExpression.Operator.AND,
+                combine(ETExpression.Operator.OR, a, b), c));
+        assertNotEquals(ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter1),
+                        ETSingleFlight.retrieveKey(ETSubscriber.class, null, null, null, filter2));
+    }
+
+    private static ETExpression equals(String property, String value) {
+        ETExpression expression = new ETExpression();
+        expression.setProperty(property);
+        expression.setOperator(ETExpression.Operator.EQUALS);
+        expression.addValue(value);
+        return expression;
+    }
+
+    private static ETExpression combine(ETExpression.Operator operator,
+                                        ETExpression expression1,
+                                        ETExpression expression2)
+    {
+        ETExpression expression = new ETExpression();
+        expression.setOperator(operator);
+        expression.addSubexpression(expression1);
+        expression.addSubexpression(expression2);
+        return expression;
+    }
+}
@@ -0,0 +1,179 @@
+//
+// This file is part of the Fuel Java SDK.
+//
+// Copyright (c) 2013, 2014, 2015, ExactTarget, Inc.
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions
+// are met:
+//
+// * Redistributions of source code must retain the above copyright
+// notice, this list of conditions and the following disclaimer.
+//
+// * Redistributions in binary form must reproduce the above copyright
+// notice, this list of conditions and the following disclaimer in the
+// documentation and/or other materials provided with the distribution.
+//
+// * Neither the name of ExactTarget, Inc. nor the names of its
+// contributors may be used to endorse or promote products derived
+// from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+// A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+// HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+// SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+// LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+// DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+// THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+// OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+//
+
+package com.exacttarget.fuelsdk;
+
+import java.util.List;
+
+import org.apache.commons.beanutils.BeanUtilsBean;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.exacttarget.fuelsdk.internal.APIProperty;
+import com.exacttarget.fuelsdk.internal.DataExtension;
+import com.exacttarget.fuelsdk.internal.DataExtensionField;
+import com.exacttarget.fuelsdk.internal.DataExtensionFieldType;
+import com.exacttarget.fuelsdk.internal.DataExtensionObject;
+import com.exacttarget.fuelsdk.internal.EmailType;
+import com.exacttarget.fuelsdk.internal.ObjectExtension;
+import com.exacttarget.fuelsdk.internal.Subscriber;
+import com.exacttarget.fuelsdk.internal.SubscriberStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ETSoapObjectTest {
+    @BeforeClass
+    public static void setUpBeforeClass()
+        throws ETSdkException
+    {
+        Assume.assumeNotNull(ETSoapObjectTest.class
+                .getResource("/fuelsdk-test.properties"));
+    }
+
+    @Test
+    public void testToInternal()
+        throws ETSdkException
+    {
+        ETSubscriber subscriber = new ETSubscriber();
+        subscriber.setKey("key");
+        subscriber.setEmailAddress("test@example.com");
+        subscriber.setStatus(ETSubscriber.Status.ACTIVE);
+        subscriber.setPreferredEmailType(ETEmail.Type.HTML);
+        Subscriber internalSubscriber = (Subscriber) subscriber.toInternal();
+        assertEquals("key", internalSubscriber.getSubscriberKey());
+        assertEquals("test@example.com", internalSubscriber.getEmailAddress());
+        assertEquals(SubscriberStatus.ACTIVE, internalSubscriber.getStatus());
+        assertEquals(EmailType.HTML, internalSubscriber.getEmailTypePreference());
+        assertNull(internalSubscriber.getId());
+    }
+
+    @Test
+    public void testFromInternal()
+        throws ETSdkException
+    {
+        Subscriber internalSubscriber = new Subscriber();
+        internalSubscriber.setId(1);
+        internalSubscriber.setSubscriberKey("key");
+        internalSubscriber.setEmailAddress("test@example.com");
+        internalSubscriber.setStatus(SubscriberStatus.UNSUBSCRIBED);
+        ETSubscriber subscriber = new ETSubscriber();
+        subscriber.fromInternal(internalSubscriber);
+        assertEquals("1", subscriber.getId());
+        assertEquals("key", subscriber.getKey());
+        assertEquals("test@example.com", subscriber.getEmailAddress());
+        assertEquals(ETSubscriber.Status.UNSUBSCRIBED, subscriber.getStatus());
+        assertNull(subscriber.getPreferredEmailType());
+    }
+
+    @Test
+    public void testDataExtensionRowToInternal()
+        throws ETSdkException
+    {
+        ETDataExtensionRow row = new ETDataExtensionRow();
+        row.setDataExtensionKey("key");
+        row.setColumn("foo", "bar");
+        DataExtensionObject internalRow = (DataExtensionObject) row.toInternal();
+        assertEquals("key", internalRow.getCustomerKey());
+        List<APIProperty> properties = internalRow.getProperties().getProperty();
+        assertEquals(1, properties.size());
+        assertEquals("foo", properties.get(0).getName());
+        assertEquals("bar", properties.get(0).getValue());
+    }
+
+    @Test
+    public void testDataExtensionRowFromInternal()
+        throws ETSdkException
+    {
+        APIProperty property = new APIProperty();
+        property.setName("Foo");
+        property.setValue("bar");
+        DataExtensionObject internalRow = new DataExtensionObject();
+        internalRow.setProperties(new ObjectExtension.Properties());
+        internalRow.getProperties().getProperty().add(property);
+        ETDataExtensionRow row = new ETDataExtensionRow();
+        row.fromInternal(internalRow);
+        assertEquals("bar", row.getColumn("foo"));
+    }
+
+    @Test
+    public void testDataExtensionColumnsToInternal()
+        throws ETSdkException
+    {
+        ETDataExtension dataExtension = new ETDataExtension();
+        dataExtension.setName("test");
+        dataExtension.addColumn("foo", ETDataExtensionColumn.Type.NUMBER, true);
+        dataExtension.addColumn("bar");
+        DataExtension internalDataExtension =
+                (DataExtension) dataExtension.toInternal();
+        assertEquals("test", internalDataExtension.getName());
+        List<DataExtensionField> fields =
+                internalDataExtension.getFields().getField();
+        assertEquals(2, fields.size());
+        assertEquals("foo", fields.get(0).getName());
+        assertEquals(DataExtensionFieldType.NUMBER, fields.get(0).getFieldType());
+        assertEquals(Boolean.TRUE, fields.get(0).getIsPrimaryKey());
+        assertEquals("bar", fields.get(1).getName());
+    }
+
+    @Test
+    public void testConvertersNotRegisteredGlobally()
+        throws ETSdkException
+    {
+        new ETSubscriber().toInternal();
+        assertNotNull(ETSoapObject.lookupConverter(ETSubscriber.Status.class));
+        assertNull(BeanUtilsBean.getInstance().getConvertUtils()
+                .lookup(ETSubscriber.Status.class));
+    }
+
+    @Test
+    public void testTypeMetadata()
+        throws ETSdkException
+    {
+        ETSoapObject.TypeMetadata metadata =
+                ETSoapObject.getTypeMetadata(ETSubscriber.class);
+        assertSame(metadata, ETSoapObject.getTypeMetadata(ETSubscriber.class));
+        assertEquals(Subscriber.class, metadata.getInternalType());
+        assertEquals("SubscriberKey", metadata.getInternalProperty("key"));
+        assertEquals("EmailAddress", metadata.getInternalProperty("emailAddress"));
+        assertTrue(metadata.getProperties().contains("ModifiedDate"));
+        assertFalse(metadata.getRetrievableProperties().contains("ModifiedDate"));
+        assertTrue(metadata.getRetrievableProperties().contains("SubscriberKey"));
+    }
+}